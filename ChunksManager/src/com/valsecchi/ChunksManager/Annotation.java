@@ -0,0 +1,57 @@
+package com.valsecchi.ChunksManager;
+
+/**
+ * Parola di un chunk trovata in un testo da
+ * {@link DictionaryData#annotate(java.io.Reader, boolean)}, con la posizione
+ * in cui inizia e gli attributi del chunk.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryManager#annotate(String, boolean)
+ *
+ */
+public final class Annotation {
+
+	private final long offset;
+	private final String word;
+	private final String hash;
+	private final String type;
+	private final String unit;
+
+	Annotation(long _offset, Chunk chunk) {
+		offset = _offset;
+		word = chunk.getWord();
+		hash = chunk.getHash();
+		type = chunk.getType();
+		unit = chunk.getUnit();
+	}
+
+	/**
+	 * Posizione nel testo del primo carattere della parola
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	public String getWord() {
+		return word;
+	}
+
+	public String getHash() {
+		return hash;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public String getUnit() {
+		return unit;
+	}
+
+	@Override
+	public String toString() {
+		return offset + " " + word + " " + hash + " " + type + " " + unit;
+	}
+}
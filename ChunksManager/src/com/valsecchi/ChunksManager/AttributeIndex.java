@@ -0,0 +1,104 @@
+package com.valsecchi.ChunksManager;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Indice bitmap di un attributo dei chunk (tipo o unità). Gli attributi hanno
+ * pochi valori distinti, quindi per ogni valore viene memorizzato un BitSet
+ * con un bit per ogni id di chunk: i filtri su più attributi diventano
+ * semplici operazioni AND tra bitmap, senza leggere gli oggetti Chunk.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData#getChunksWithArguments(String,
+ *      String, String)
+ *
+ */
+final class AttributeIndex {
+
+	private final Map<String, BitSet> bitmaps = new HashMap<>();
+
+	/**
+	 * Aggiunge all'indice il valore dell'attributo del chunk con l'id
+	 * specificato. I valori null non vengono indicizzati.
+	 */
+	void add(int id, String value) {
+		if (value == null) {
+			return;
+		}
+		BitSet bitmap = bitmaps.get(value);
+		if (bitmap == null) {
+			bitmap = new BitSet();
+			bitmaps.put(value, bitmap);
+		}
+		bitmap.set(id);
+	}
+
+	/**
+	 * Rimuove dall'indice il valore dell'attributo del chunk con l'id
+	 * specificato
+	 */
+	void remove(int id, String value) {
+		BitSet bitmap = bitmaps.get(value);
+		if (bitmap != null) {
+			bitmap.clear(id);
+			if (bitmap.isEmpty()) {
+				bitmaps.remove(value);
+			}
+		}
+	}
+
+	void clear() {
+		bitmaps.clear();
+	}
+
+	/**
+	 * Restituisce una nuova bitmap con gli id dei chunk il cui attributo è
+	 * uguale a value
+	 */
+	BitSet equalTo(String value) {
+		BitSet bitmap = bitmaps.get(value);
+		return bitmap == null ? new BitSet() : (BitSet) bitmap.clone();
+	}
+
+	/**
+	 * Restituisce una nuova bitmap con gli id dei chunk il cui attributo
+	 * contiene part. Si uniscono le bitmap di tutti i valori distinti che
+	 * contengono part, che sono pochi.
+	 */
+	BitSet containing(String part) {
+		BitSet result = new BitSet();
+		for (Map.Entry<String, BitSet> entry : bitmaps.entrySet()) {
+			if (entry.getKey().contains(part)) {
+				result.or(entry.getValue());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Restituisce il numero di chunk il cui attributo è uguale a value
+	 */
+	int count(String value) {
+		BitSet bitmap = bitmaps.get(value);
+		return bitmap == null ? 0 : bitmap.cardinality();
+	}
+
+	/**
+	 * Restituisce il numero di chunk il cui attributo contiene part. Ogni chunk
+	 * ha un solo valore, quindi le bitmap dei valori distinti sono disgiunte e
+	 * il conteggio è esatto.
+	 */
+	int countContaining(String part) {
+		int count = 0;
+		for (Map.Entry<String, BitSet> entry : bitmaps.entrySet()) {
+			if (entry.getKey().contains(part)) {
+				count += entry.getValue().cardinality();
+			}
+		}
+		return count;
+	}
+}
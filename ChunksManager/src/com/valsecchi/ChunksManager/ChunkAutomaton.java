@@ -0,0 +1,359 @@
+package com.valsecchi.ChunksManager;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Automa di Aho-Corasick delle parole dei chunk, utilizzato per trovare in un
+ * testo tutte le parole del dizionario con una sola lettura. Gli stati sono
+ * numerati in ampiezza partendo dalle parole ordinate, quindi i figli di ogni
+ * stato hanno numeri consecutivi e sono ordinati per carattere: per ogni
+ * stato basta memorizzare il primo figlio e il numero di figli, senza tabelle
+ * di transizione. I collegamenti di fallimento vengono calcolati nello stesso
+ * ordine.
+ * <p>
+ * L'automa memorizza gli id e gli hash dei chunk e non i chunk: la lettura
+ * del testo con {@link #scan(Reader, boolean, ChunkAutomaton, ChunkAutomaton)}
+ * non accede ai dati del dizionario e può avvenire senza lock. I chunk
+ * eliminati dopo la costruzione hanno l'id vuoto e vengono ignorati, mentre
+ * quelli aggiunti vanno cercati con un secondo automa.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData#annotate(Reader, boolean)
+ *
+ */
+final class ChunkAutomaton {
+
+	/**
+	 * Numero di caratteri letti dal testo per volta
+	 */
+	private static final int READ_BUFFER = 8192;
+
+	/**
+	 * Carattere che porta a ogni stato dal padre
+	 */
+	private final char[] labels;
+	private final int[] firstChild;
+	private final int[] childCount;
+	/**
+	 * Stato del suffisso più lungo che è anche un prefisso di una parola
+	 */
+	private final int[] fail;
+	/**
+	 * Stato più vicino lungo i fallimenti che termina una parola, -1 se
+	 * nessuno
+	 */
+	private final int[] link;
+	/**
+	 * Lunghezza del prefisso rappresentato da ogni stato
+	 */
+	private final int[] depth;
+	/**
+	 * Posizione e numero degli id delle parole che terminano in ogni stato
+	 */
+	private final int[] outStart;
+	private final int[] outCount;
+	private final int[] ids;
+	/**
+	 * Hash dei chunk di {@link #ids}, per ritrovarli se gli id vengono
+	 * riassegnati durante la lettura del testo
+	 */
+	private final String[] hashes;
+	private final int maxLength;
+
+	/**
+	 * Numero di id di chunk considerati nella costruzione, compresi quelli
+	 * vuoti
+	 */
+	final int coveredIds;
+
+	private ChunkAutomaton(List<Chunk> chunks, int from, int to) {
+		coveredIds = to;
+		// si ordinano le parole, così gli stati vengono creati in ordine
+		List<Integer> order = new ArrayList<>();
+		int chars = 0;
+		int longest = 0;
+		for (int id = from; id < to; id++) {
+			Chunk c = chunks.get(id);
+			if (c != null && c.getWord() != null && c.getWord().length() > 0) {
+				order.add(id);
+				chars += c.getWord().length();
+				longest = Math.max(longest, c.getWord().length());
+			}
+		}
+		final List<Chunk> all = chunks;
+		Integer[] sorted = order.toArray(new Integer[order.size()]);
+		Arrays.sort(sorted, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return all.get(a).getWord().compareTo(all.get(b).getWord());
+			}
+		});
+		String[] words = new String[sorted.length];
+		ids = new int[sorted.length];
+		hashes = new String[sorted.length];
+		for (int i = 0; i < sorted.length; i++) {
+			ids[i] = sorted[i];
+			hashes[i] = chunks.get(sorted[i]).getHash();
+			words[i] = chunks.get(sorted[i]).getWord();
+		}
+		maxLength = longest;
+		// al più uno stato per carattere, più la radice
+		int capacity = chars + 1;
+		char[] _labels = new char[capacity];
+		int[] _firstChild = new int[capacity];
+		int[] _childCount = new int[capacity];
+		int[] _depth = new int[capacity];
+		int[] _outStart = new int[capacity];
+		int[] _outCount = new int[capacity];
+		// intervallo delle parole ordinate che iniziano con ogni stato
+		int[] low = new int[capacity];
+		int[] high = new int[capacity];
+		high[0] = words.length;
+		int states = 1;
+		for (int s = 0; s < states; s++) {
+			int d = _depth[s];
+			int i = low[s];
+			// le parole uguali al prefisso sono le prime dell'intervallo
+			_outStart[s] = i;
+			while (i < high[s] && words[i].length() == d) {
+				i++;
+			}
+			_outCount[s] = i - low[s];
+			_firstChild[s] = states;
+			while (i < high[s]) {
+				char c = words[i].charAt(d);
+				int j = i + 1;
+				while (j < high[s] && words[j].charAt(d) == c) {
+					j++;
+				}
+				_labels[states] = c;
+				_depth[states] = d + 1;
+				low[states] = i;
+				high[states] = j;
+				states++;
+				i = j;
+			}
+			_childCount[s] = states - _firstChild[s];
+		}
+		labels = Arrays.copyOf(_labels, states);
+		firstChild = Arrays.copyOf(_firstChild, states);
+		childCount = Arrays.copyOf(_childCount, states);
+		depth = Arrays.copyOf(_depth, states);
+		outStart = Arrays.copyOf(_outStart, states);
+		outCount = Arrays.copyOf(_outCount, states);
+		fail = new int[states];
+		link = new int[states];
+		link[0] = -1;
+		// i padri precedono i figli, quindi il fallimento del padre è noto
+		for (int s = 0; s < states; s++) {
+			for (int t = firstChild[s]; t < firstChild[s] + childCount[s]; t++) {
+				if (s == 0) {
+					fail[t] = 0;
+				} else {
+					fail[t] = this.next(fail[s], labels[t]);
+				}
+				link[t] = outCount[fail[t]] > 0 ? fail[t] : link[fail[t]];
+			}
+		}
+	}
+
+	/**
+	 * Costruisce l'automa delle parole dei chunk con id compreso tra from
+	 * (incluso) e to (escluso); gli id vuoti vengono ignorati
+	 */
+	static ChunkAutomaton build(List<Chunk> chunks, int from, int to) {
+		return new ChunkAutomaton(chunks, from, to);
+	}
+
+	/**
+	 * Numero di parole dell'automa
+	 */
+	int size() {
+		return ids.length;
+	}
+
+	/**
+	 * Stato raggiunto leggendo il carattere c dallo stato specificato
+	 */
+	private int next(int state, char c) {
+		while (true) {
+			int child = this.child(state, c);
+			if (child >= 0) {
+				return child;
+			}
+			if (state == 0) {
+				return 0;
+			}
+			state = fail[state];
+		}
+	}
+
+	private int child(int state, char c) {
+		int lowIndex = firstChild[state];
+		int highIndex = lowIndex + childCount[state] - 1;
+		while (lowIndex <= highIndex) {
+			int mid = (lowIndex + highIndex) >>> 1;
+			char current = labels[mid];
+			if (current < c) {
+				lowIndex = mid + 1;
+			} else if (current > c) {
+				highIndex = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	private boolean hasOutput(int state) {
+		return outCount[state] > 0 || link[state] >= 0;
+	}
+
+	/**
+	 * Aggiunge a results le parole che terminano nella posizione end del
+	 * testo quando l'automa si trova nello stato specificato
+	 */
+	private void emit(int state, long end, boolean wholeWords,
+			boolean[] wordChars, Matches results) {
+		int output = outCount[state] > 0 ? state : link[state];
+		while (output >= 0) {
+			long start = end - depth[output] + 1;
+			int mask = wordChars.length - 1;
+			if (wholeWords == false || start == 0
+					|| wordChars[(int) ((start - 1) & mask)] == false) {
+				for (int i = outStart[output]; i < outStart[output]
+						+ outCount[output]; i++) {
+					results.add(start, ids[i], hashes[i]);
+				}
+			}
+			output = link[output];
+		}
+	}
+
+	/**
+	 * Metodo che legge il testo una sola volta con i due automi e restituisce
+	 * posizione, id e hash di tutte le parole dei chunk che vi compaiono, in
+	 * ordine di posizione finale. L'automa delta contiene i chunk aggiunti
+	 * dopo la costruzione di quello principale. Gli automi non vengono
+	 * modificati dopo la costruzione, quindi il metodo non richiede lock.
+	 *
+	 * @param text
+	 *            testo da leggere
+	 * @param wholeWords
+	 *            True per trovare solo le parole non precedute né seguite da
+	 *            lettere o cifre
+	 * @param main
+	 *            automa principale
+	 * @param delta
+	 *            automa dei chunk aggiunti, null se non ce ne sono
+	 * @return parole trovate, da convertire nei chunk con gli id o gli hash
+	 * @throws IOException
+	 *             se la lettura del testo non riesce
+	 */
+	static Matches scan(Reader text, boolean wholeWords, ChunkAutomaton main,
+			ChunkAutomaton delta) throws IOException {
+		Matches results = new Matches();
+		int longest = Math.max(main.maxLength, delta == null ? 0
+				: delta.maxLength);
+		// si ricorda se gli ultimi caratteri sono lettere o cifre, per
+		// verificare il carattere che precede ogni parola trovata
+		boolean[] wordChars = new boolean[Integer.highestOneBit(longest + 1) * 2];
+		int mask = wordChars.length - 1;
+		char[] buffer = new char[READ_BUFFER];
+		int mainState = 0;
+		int deltaState = 0;
+		// con wholeWords le parole che terminano in una posizione si
+		// emettono solo dopo aver letto il carattere successivo
+		boolean pending = false;
+		long position = 0;
+		int read;
+		while ((read = text.read(buffer)) >= 0) {
+			for (int i = 0; i < read; i++, position++) {
+				char c = buffer[i];
+				boolean wordChar = Character.isLetterOrDigit(c);
+				if (pending) {
+					if (wordChar == false) {
+						main.emit(mainState, position - 1, true, wordChars,
+								results);
+						if (delta != null) {
+							delta.emit(deltaState, position - 1, true,
+									wordChars, results);
+						}
+					}
+					pending = false;
+				}
+				wordChars[(int) (position & mask)] = wordChar;
+				mainState = main.next(mainState, c);
+				if (delta != null) {
+					deltaState = delta.next(deltaState, c);
+				}
+				if (wholeWords) {
+					pending = main.hasOutput(mainState)
+							|| (delta != null && delta.hasOutput(deltaState));
+				} else {
+					main.emit(mainState, position, false, wordChars, results);
+					if (delta != null) {
+						delta.emit(deltaState, position, false, wordChars,
+								results);
+					}
+				}
+			}
+		}
+		if (pending) {
+			// la fine del testo chiude l'ultima parola
+			main.emit(mainState, position - 1, true, wordChars, results);
+			if (delta != null) {
+				delta.emit(deltaState, position - 1, true, wordChars, results);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Parole trovate da {@link ChunkAutomaton#scan(Reader, boolean,
+	 * ChunkAutomaton, ChunkAutomaton)}: posizione iniziale, id e hash del
+	 * chunk di ognuna, memorizzati in array
+	 */
+	static final class Matches {
+
+		private long[] offsets = new long[16];
+		private int[] ids = new int[16];
+		private String[] hashes = new String[16];
+		private int size;
+
+		int size() {
+			return size;
+		}
+
+		long offset(int index) {
+			return offsets[index];
+		}
+
+		int id(int index) {
+			return ids[index];
+		}
+
+		String hash(int index) {
+			return hashes[index];
+		}
+
+		private void add(long offset, int id, String hash) {
+			if (size == ids.length) {
+				offsets = Arrays.copyOf(offsets, size * 2);
+				ids = Arrays.copyOf(ids, size * 2);
+				hashes = Arrays.copyOf(hashes, size * 2);
+			}
+			offsets[size] = offset;
+			ids[size] = id;
+			hashes[size] = hash;
+			size += 1;
+		}
+	}
+}
@@ -1,42 +1,42 @@
-package com.valsecchi.ChunksManager;
-
-public class Definition {
-
-	private String Hash;
-	private String Definition;
-
-	public Definition(String hash, String definition) {
-		Hash = hash;
-		Definition = definition;
-	}
-
-	public String getHash() {
-		return Hash;
-	}
-
-	public String getText() {
-		return Definition;
-	}
-
-	public boolean equals(Definition def) {
-		// confronta due oggetti
-		if (def.getHash().equals(this.getHash())
-				&& def.getText().equals(this.getText())) {
-			return true;
-		} else {
-			return false;
-		}
-	}
-
-	@Override
-	public boolean equals(Object obj) {
-		// confronta due oggetti
-		Definition def = (Definition) obj;
-		if (def.getHash().equals(this.getHash())
-				&& def.getText().equals(this.getText())) {
-			return true;
-		} else {
-			return false;
-		}
-	}
-}
+package com.valsecchi.ChunksManager;
+
+public class Definition {
+
+	private String Hash;
+	private String Definition;
+
+	public Definition(String hash, String definition) {
+		Hash = hash;
+		Definition = definition;
+	}
+
+	public String getHash() {
+		return Hash;
+	}
+
+	public String getText() {
+		return Definition;
+	}
+
+	public boolean equals(Definition def) {
+		// confronta due oggetti
+		if (def.getHash().equals(this.getHash())
+				&& def.getText().equals(this.getText())) {
+			return true;
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		// confronta due oggetti
+		Definition def = (Definition) obj;
+		if (def.getHash().equals(this.getHash())
+				&& def.getText().equals(this.getText())) {
+			return true;
+		} else {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,463 @@
+package com.valsecchi.ChunksManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indice invertito dei termini contenuti nei testi delle definizioni. Per ogni
+ * termine l'indice memorizza la lista ordinata degli id dei chunk che hanno
+ * almeno una definizione che lo contiene, insieme al numero di occorrenze: in
+ * questo modo eliminando una definizione si tolgono solo le sue occorrenze e
+ * il chunk rimane nella lista se il termine compare in un'altra definizione.
+ * I termini sono le sequenze di lettere e cifre del testo, convertite in
+ * minuscolo. L'indice conserva anche il numero di termini delle definizioni di
+ * ogni chunk, per ordinare i risultati per rilevanza con BM25.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData#getChunksByDefinition(String,
+ *      int)
+ * @see com.valsecchi.ChunksManager.DictionaryData#getChunksByRelevance(String,
+ *      int)
+ *
+ */
+final class DefinitionIndex {
+
+	/**
+	 * Parametri di BM25: saturazione delle occorrenze e peso della lunghezza
+	 */
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	private final Map<String, Postings> postings = new HashMap<>();
+	/**
+	 * Numero di termini delle definizioni di ogni chunk, indicizzato con l'id
+	 */
+	private int[] lengths = new int[16];
+	/**
+	 * Numero di chunk con almeno un termine e somma delle loro lunghezze
+	 */
+	private int documents = 0;
+	private long totalLength = 0;
+
+	/**
+	 * Lista ordinata degli id dei chunk che contengono un termine, con il
+	 * numero di occorrenze del termine nelle definizioni di ogni chunk
+	 */
+	private static final class Postings {
+		int[] ids = new int[4];
+		int[] counts = new int[4];
+		int size;
+		/**
+		 * Limite superiore delle occorrenze in un chunk; non diminuisce con le
+		 * rimozioni, ma rimane un limite valido
+		 */
+		int maxCount;
+
+		/**
+		 * Aggiunge un'occorrenza del termine per il chunk con l'id
+		 * specificato
+		 */
+		void add(int id) {
+			int pos;
+			if (size == 0 || ids[size - 1] < id) {
+				pos = -size - 1;
+			} else if (ids[size - 1] == id) {
+				// caso frequente: altre occorrenze nella stessa definizione
+				pos = size - 1;
+			} else {
+				pos = Arrays.binarySearch(ids, 0, size, id);
+			}
+			if (pos >= 0) {
+				counts[pos] += 1;
+				maxCount = Math.max(maxCount, counts[pos]);
+				return;
+			}
+			pos = -pos - 1;
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+				counts = Arrays.copyOf(counts, size * 2);
+			}
+			System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+			System.arraycopy(counts, pos, counts, pos + 1, size - pos);
+			ids[pos] = id;
+			counts[pos] = 1;
+			size += 1;
+			maxCount = Math.max(maxCount, 1);
+		}
+
+		/**
+		 * Rimuove un'occorrenza del termine per il chunk con l'id specificato
+		 */
+		void remove(int id) {
+			int pos = Arrays.binarySearch(ids, 0, size, id);
+			if (pos < 0) {
+				return;
+			}
+			counts[pos] -= 1;
+			if (counts[pos] <= 0) {
+				System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+				System.arraycopy(counts, pos + 1, counts, pos, size - pos - 1);
+				size -= 1;
+			}
+		}
+	}
+
+	/**
+	 * Aggiunge all'indice il testo di una definizione del chunk con l'id
+	 * specificato
+	 */
+	void add(int id, String text) {
+		List<String> terms = terms(text);
+		this.addLength(id, terms.size());
+		for (String term : terms) {
+			Postings list = postings.get(term);
+			if (list == null) {
+				list = new Postings();
+				postings.put(term, list);
+			}
+			list.add(id);
+		}
+	}
+
+	/**
+	 * Rimuove dall'indice il testo di una definizione del chunk con l'id
+	 * specificato
+	 */
+	void remove(int id, String text) {
+		List<String> terms = terms(text);
+		this.addLength(id, -terms.size());
+		for (String term : terms) {
+			Postings list = postings.get(term);
+			if (list != null) {
+				list.remove(id);
+				if (list.size == 0) {
+					postings.remove(term);
+				}
+			}
+		}
+	}
+
+	void clear() {
+		postings.clear();
+		lengths = new int[16];
+		documents = 0;
+		totalLength = 0;
+	}
+
+	private void addLength(int id, int delta) {
+		if (delta == 0) {
+			return;
+		}
+		if (id >= lengths.length) {
+			lengths = Arrays.copyOf(lengths, Math.max(id + 1,
+					lengths.length * 2));
+		}
+		if (lengths[id] == 0) {
+			documents += 1;
+		}
+		lengths[id] += delta;
+		if (lengths[id] == 0) {
+			documents -= 1;
+		}
+		totalLength += delta;
+	}
+
+	/**
+	 * Metodo che restituisce gli id dei chunk le cui definizioni contengono i
+	 * termini della query.
+	 *
+	 * @param query
+	 *            testo da cui ricavare i termini da cercare
+	 * @param all
+	 *            True se i chunk devono contenere tutti i termini, False se ne
+	 *            basta uno
+	 * @return bitmap degli id trovati, vuota se la query non contiene termini
+	 */
+	BitSet search(String query, boolean all) {
+		BitSet result = new BitSet();
+		List<Postings> lists = new ArrayList<>();
+		for (String term : new LinkedHashSet<>(terms(query))) {
+			Postings list = postings.get(term);
+			if (list != null) {
+				lists.add(list);
+			} else if (all) {
+				// nessun chunk contiene questo termine
+				return result;
+			}
+		}
+		if (lists.isEmpty()) {
+			return result;
+		}
+		if (all == false) {
+			for (Postings list : lists) {
+				for (int i = 0; i < list.size; i++) {
+					result.set(list.ids[i]);
+				}
+			}
+			return result;
+		}
+		// si scorre la lista più corta cercando i suoi id nelle altre
+		Collections.sort(lists, new Comparator<Postings>() {
+			@Override
+			public int compare(Postings a, Postings b) {
+				return Integer.compare(a.size, b.size);
+			}
+		});
+		Postings shortest = lists.get(0);
+		int[] from = new int[lists.size()];
+		for (int i = 0; i < shortest.size; i++) {
+			int id = shortest.ids[i];
+			boolean found = true;
+			for (int l = 1; l < lists.size() && found; l++) {
+				Postings other = lists.get(l);
+				int pos = Arrays.binarySearch(other.ids, from[l], other.size, id);
+				found = pos >= 0;
+				from[l] = found ? pos + 1 : -pos - 1;
+			}
+			if (found) {
+				result.set(id);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Metodo che restituisce i k chunk le cui definizioni sono più rilevanti
+	 * per i termini della query secondo BM25. Le liste dei termini vengono
+	 * scorse insieme in ordine di id (MaxScore): ogni termine ha un punteggio
+	 * massimo e, quando la somma dei massimi di alcuni termini non basta più
+	 * a superare il k-esimo punteggio trovato, i chunk che contengono solo
+	 * quei termini vengono saltati e le loro liste sono consultate solo per i
+	 * chunk candidati, con una ricerca binaria.
+	 *
+	 * @param query
+	 *            testo da cui ricavare i termini da cercare
+	 * @param k
+	 *            numero massimo di risultati
+	 * @return i risultati, ordinati per punteggio decrescente
+	 */
+	TopK rank(String query, int k) {
+		// non ci possono essere più risultati che chunk con definizioni
+		TopK top = new TopK(Math.max(Math.min(k, documents), 0));
+		List<Postings> lists = new ArrayList<>();
+		for (String term : new LinkedHashSet<>(terms(query))) {
+			Postings list = postings.get(term);
+			if (list != null) {
+				lists.add(list);
+			}
+		}
+		if (k <= 0 || lists.isEmpty()) {
+			return top;
+		}
+		int n = lists.size();
+		double average = (double) totalLength / documents;
+		final double[] idf = new double[n];
+		final double[] bound = new double[n];
+		for (int i = 0; i < n; i++) {
+			Postings list = lists.get(i);
+			idf[i] = Math.log(1 + (documents - list.size + 0.5)
+					/ (list.size + 0.5));
+			// con lunghezza nulla il punteggio è massimo
+			bound[i] = idf[i] * list.maxCount * (K1 + 1)
+					/ (list.maxCount + K1 * (1 - B));
+		}
+		// si ordinano i termini per punteggio massimo crescente
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(bound[a], bound[b]);
+			}
+		});
+		Postings[] sorted = new Postings[n];
+		double[] weights = new double[n];
+		// sums[i]: somma dei punteggi massimi dei termini 0..i
+		double[] sums = new double[n];
+		for (int i = 0; i < n; i++) {
+			sorted[i] = lists.get(order[i]);
+			weights[i] = idf[order[i]];
+			sums[i] = bound[order[i]] + (i > 0 ? sums[i - 1] : 0);
+		}
+		int[] pos = new int[n];
+		// i termini prima di essential non bastano da soli a entrare
+		int essential = 0;
+		while (essential < n) {
+			// prossimo candidato: il minimo id delle liste essenziali
+			int id = Integer.MAX_VALUE;
+			for (int i = essential; i < n; i++) {
+				if (pos[i] < sorted[i].size) {
+					id = Math.min(id, sorted[i].ids[pos[i]]);
+				}
+			}
+			if (id == Integer.MAX_VALUE) {
+				break;
+			}
+			double norm = K1 * (1 - B + B * lengths[id] / average);
+			double score = 0;
+			for (int i = essential; i < n; i++) {
+				if (pos[i] < sorted[i].size && sorted[i].ids[pos[i]] == id) {
+					int count = sorted[i].counts[pos[i]];
+					score += weights[i] * count * (K1 + 1) / (count + norm);
+					pos[i] += 1;
+				}
+			}
+			for (int i = essential - 1; i >= 0; i--) {
+				if (top.isFull() && score + sums[i] <= top.minScore()) {
+					// anche con tutti i termini restanti non entrerebbe
+					break;
+				}
+				Postings list = sorted[i];
+				int found = Arrays.binarySearch(list.ids, pos[i], list.size, id);
+				if (found >= 0) {
+					int count = list.counts[found];
+					score += weights[i] * count * (K1 + 1) / (count + norm);
+					pos[i] = found + 1;
+				} else {
+					pos[i] = -found - 1;
+				}
+			}
+			if (top.offer(id, score)) {
+				while (essential < n && top.isFull()
+						&& sums[essential] <= top.minScore()) {
+					essential += 1;
+				}
+			}
+		}
+		top.sort();
+		return top;
+	}
+
+	/**
+	 * Heap limitato ai k punteggi più alti. Un nuovo id entra solo se il
+	 * punteggio supera strettamente il minimo, quindi a parità di punteggio
+	 * rimangono gli id minori.
+	 */
+	static final class TopK {
+		final int[] ids;
+		final double[] scores;
+		int size;
+
+		TopK(int k) {
+			ids = new int[k];
+			scores = new double[k];
+		}
+
+		boolean isFull() {
+			return size == ids.length;
+		}
+
+		double minScore() {
+			return scores[0];
+		}
+
+		/**
+		 * Inserisce l'id se rientra nei k punteggi più alti
+		 *
+		 * @return True se l'id è stato inserito
+		 */
+		boolean offer(int id, double score) {
+			if (size < ids.length) {
+				ids[size] = id;
+				scores[size] = score;
+				size += 1;
+				this.up(size - 1);
+				return true;
+			}
+			if (size == 0 || score <= scores[0]) {
+				return false;
+			}
+			ids[0] = id;
+			scores[0] = score;
+			this.down(0, size);
+			return true;
+		}
+
+		/**
+		 * Ordina gli elementi per punteggio decrescente e poi per id, dopo
+		 * l'ordinamento l'heap non va più modificato
+		 */
+		void sort() {
+			// si estrae ripetutamente il minimo portandolo in fondo
+			for (int end = size - 1; end > 0; end--) {
+				this.swap(0, end);
+				this.down(0, end);
+			}
+		}
+
+		private boolean less(int a, int b) {
+			return scores[a] < scores[b]
+					|| (scores[a] == scores[b] && ids[a] > ids[b]);
+		}
+
+		private void up(int i) {
+			while (i > 0 && this.less(i, (i - 1) / 2)) {
+				this.swap(i, (i - 1) / 2);
+				i = (i - 1) / 2;
+			}
+		}
+
+		private void down(int i, int end) {
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= end) {
+					return;
+				}
+				if (child + 1 < end && this.less(child + 1, child)) {
+					child += 1;
+				}
+				if (this.less(child, i) == false) {
+					return;
+				}
+				this.swap(i, child);
+				i = child;
+			}
+		}
+
+		private void swap(int a, int b) {
+			int id = ids[a];
+			ids[a] = ids[b];
+			ids[b] = id;
+			double score = scores[a];
+			scores[a] = scores[b];
+			scores[b] = score;
+		}
+	}
+
+	/**
+	 * Metodo che divide un testo nei suoi termini, cioè le sequenze di
+	 * lettere e cifre convertite in minuscolo, nell'ordine in cui compaiono.
+	 */
+	static List<String> terms(String text) {
+		List<String> terms = new ArrayList<>();
+		if (text == null) {
+			return terms;
+		}
+		char[] term = new char[text.length()];
+		int length = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				term[length++] = Character.toLowerCase(c);
+			} else if (length > 0) {
+				terms.add(new String(term, 0, length));
+				length = 0;
+			}
+		}
+		if (length > 0) {
+			terms.add(new String(term, 0, length));
+		}
+		return terms;
+	}
+}
@@ -0,0 +1,47 @@
+package com.valsecchi.ChunksManager;
+
+/**
+ * Risultato della ricerca per rilevanza tra le definizioni: la parola del
+ * chunk trovato e il suo punteggio BM25.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData#getChunksByRelevance(String,
+ *      int)
+ *
+ */
+public final class DefinitionMatch {
+
+	private final Chunk chunk;
+	private final double score;
+
+	DefinitionMatch(Chunk _chunk, double _score) {
+		chunk = _chunk;
+		score = _score;
+	}
+
+	Chunk getChunk() {
+		return chunk;
+	}
+
+	/**
+	 * Parola del chunk trovato
+	 */
+	public String getWord() {
+		return chunk.getWord();
+	}
+
+	/**
+	 * Punteggio BM25 delle definizioni del chunk, più alto per i chunk più
+	 * rilevanti
+	 */
+	public double getScore() {
+		return score;
+	}
+
+	@Override
+	public String toString() {
+		return chunk.getWord() + " " + score;
+	}
+}
@@ -0,0 +1,110 @@
+package com.valsecchi.ChunksManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Insieme delle definizioni di un chunk, identificate dal testo e mantenute
+ * nell'ordine di inserimento. Quasi tutti i chunk hanno poche definizioni,
+ * che vengono memorizzate in una semplice lista; solo quando le definizioni
+ * superano {@link #INDEX_THRESHOLD} l'insieme passa a una mappa indicizzata
+ * con il testo, così le operazioni rimangono a tempo costante senza pagare una
+ * mappa per ogni chunk.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData
+ *
+ */
+final class DefinitionSet {
+
+	/**
+	 * Numero di definizioni oltre il quale si utilizza la mappa
+	 */
+	static final int INDEX_THRESHOLD = 8;
+
+	/**
+	 * Definizioni, se sono poche; null se si utilizza {@link #index}
+	 */
+	private List<Definition> list = new ArrayList<>(2);
+	private Map<String, Definition> index = null;
+
+	int size() {
+		return list != null ? list.size() : index.size();
+	}
+
+	boolean isEmpty() {
+		return size() == 0;
+	}
+
+	boolean contains(String text) {
+		return list != null ? find(text) >= 0 : index.containsKey(text);
+	}
+
+	/**
+	 * Aggiunge la definizione se non ne esiste già una con lo stesso testo
+	 *
+	 * @return True se la definizione è stata aggiunta
+	 */
+	boolean add(Definition def) {
+		if (list == null) {
+			if (index.containsKey(def.getText())) {
+				return false;
+			}
+			index.put(def.getText(), def);
+			return true;
+		}
+		if (find(def.getText()) >= 0) {
+			return false;
+		}
+		list.add(def);
+		if (list.size() > INDEX_THRESHOLD) {
+			index = new LinkedHashMap<>();
+			for (Definition d : list) {
+				index.put(d.getText(), d);
+			}
+			list = null;
+		}
+		return true;
+	}
+
+	/**
+	 * Rimuove la definizione con il testo specificato
+	 *
+	 * @return True se la definizione era presente
+	 */
+	boolean remove(String text) {
+		if (list == null) {
+			return index.remove(text) != null;
+		}
+		int pos = find(text);
+		if (pos < 0) {
+			return false;
+		}
+		list.remove(pos);
+		return true;
+	}
+
+	/**
+	 * Restituisce la vista delle definizioni nell'ordine di inserimento
+	 */
+	Collection<Definition> values() {
+		return list != null ? Collections.unmodifiableList(list) : Collections
+				.unmodifiableCollection(index.values());
+	}
+
+	private int find(String text) {
+		for (int i = 0; i < list.size(); i++) {
+			String current = list.get(i).getText();
+			if (current == null ? text == null : current.equals(text)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
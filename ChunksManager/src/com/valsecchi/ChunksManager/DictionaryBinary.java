@@ -0,0 +1,309 @@
+package com.valsecchi.ChunksManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * La classe DictionaryBinary gestisce il formato binario del file dizionario,
+ * alternativo al formato XML di {@link DictionaryXML}. Il file è composto da:
+ * <ul>
+ * <li>un'intestazione con il codice {@link #MAGIC} e la versione del formato;</li>
+ * <li>una tabella di stringhe, ognuna scritta una sola volta come lunghezza e
+ * byte UTF-8;</li>
+ * <li>i record dei chunk: hash di 48 bit come intero e indici nella tabella
+ * di parola, tipo e unità;</li>
+ * <li>i record delle definizioni raggruppate per chunk: posizione del record
+ * del chunk, numero di definizioni e indici dei testi nella tabella.</li>
+ * </ul>
+ * Gli hash che non sono nel formato di {@link MD5#GetHash(String)} vengono
+ * scritti come -1 seguito dall'indice della stringa nella tabella.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData
+ *
+ */
+final class DictionaryBinary {
+
+	/**
+	 * Primi quattro byte del file binario: "ATCB"
+	 */
+	static final int MAGIC = 0x41544342;
+	static final int VERSION = 1;
+	/**
+	 * Indice utilizzato per le stringhe null
+	 */
+	private static final int NULL_STRING = -1;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private DictionaryBinary() {
+	}
+
+	/**
+	 * Metodo che controlla se il file in path è un dizionario binario,
+	 * leggendone solo l'intestazione.
+	 *
+	 * @param path
+	 *            percorso del file da controllare
+	 * @return True se il file inizia con {@link #MAGIC}
+	 * @throws IOException
+	 *             se ci sono problemi nella lettura del file
+	 */
+	static boolean isBinary(Path path) throws IOException {
+		try (InputStream in = Files.newInputStream(path)) {
+			return isBinary(in);
+		}
+	}
+
+	/**
+	 * Vedere {@link #isBinary(Path)}, la differenza è che questo metodo legge
+	 * l'intestazione da uno stream già aperto, che non viene chiuso. Se lo
+	 * stream supporta mark e reset viene riportato all'inizio.
+	 */
+	static boolean isBinary(InputStream stream) throws IOException {
+		if (stream.markSupported()) {
+			stream.mark(4);
+		}
+		try {
+			return new DataInputStream(stream).readInt() == MAGIC;
+		} catch (EOFException e) {
+			// file troppo corto per essere binario
+			return false;
+		} finally {
+			if (stream.markSupported()) {
+				stream.reset();
+			}
+		}
+	}
+
+	/**
+	 * Metodo che legge il file binario in path e inserisce chunks e
+	 * definizioni in data, come {@link DictionaryXML#read(Path, DictionaryData)}.
+	 *
+	 * @param path
+	 *            percorso del file dizionario
+	 * @param data
+	 *            oggetto DictionaryData da riempire
+	 * @return False se il file non è un dizionario binario valido
+	 * @throws IOException
+	 *             se ci sono problemi nella lettura del file
+	 */
+	static boolean read(Path path, DictionaryData data) throws IOException {
+		try (InputStream in = Files.newInputStream(path)) {
+			return read(in, data);
+		}
+	}
+
+	/**
+	 * Vedere {@link #read(Path, DictionaryData)}, la differenza è che questo
+	 * metodo legge da uno stream già aperto, che non viene chiuso.
+	 */
+	static boolean read(InputStream stream, DictionaryData data)
+			throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				stream, BUFFER_SIZE));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return false;
+			}
+			// tabella delle stringhe
+			int count = in.readInt();
+			if (count < 0) {
+				return false;
+			}
+			String[] strings = new String[count];
+			for (int i = 0; i < count; i++) {
+				strings[i] = readString(in);
+			}
+			// chunks, si memorizzano gli hash per i record delle definizioni
+			String[] hashes = new String[in.readInt()];
+			for (int i = 0; i < hashes.length; i++) {
+				String hash = readHash(in, strings);
+				hashes[i] = hash;
+				String word = string(strings, in.readInt());
+				String type = string(strings, in.readInt());
+				String unit = string(strings, in.readInt());
+				data.loadChunk(new Chunk(word, hash, type, unit));
+			}
+			// definizioni raggruppate per hash
+			int groups = in.readInt();
+			for (int i = 0; i < groups; i++) {
+				String hash = hashes[in.readInt()];
+				int defs = in.readInt();
+				for (int k = 0; k < defs; k++) {
+					data.loadDefinition(new Definition(hash, string(strings,
+							in.readInt())));
+				}
+			}
+			return true;
+		} catch (EOFException | IndexOutOfBoundsException
+				| NegativeArraySizeException e) {
+			// file troncato o corrotto
+			return false;
+		}
+	}
+
+	/**
+	 * Metodo che scrive in out tutti i chunk e le definizioni di data nel
+	 * formato binario. Tipi e unità, che sono pochi, vengono scritti una sola
+	 * volta nella tabella; parole e definizioni vengono invece inserite nella
+	 * tabella nello stesso ordine dei record, così non serve memorizzarne gli
+	 * indici. Lo stream viene bufferizzato internamente e svuotato al termine,
+	 * ma non viene chiuso.
+	 *
+	 * @param data
+	 *            versione dei dati da scrivere
+	 * @param stream
+	 *            stream su cui scrivere
+	 * @throws IOException
+	 *             se ci sono problemi nella scrittura
+	 */
+	static void write(DictionarySnapshot data, OutputStream stream)
+			throws IOException {
+		// prima si contano le stringhe e i gruppi di definizioni
+		Map<String, Integer> attributes = new HashMap<>();
+		List<String> attributesTable = new ArrayList<>();
+		int count = 0;
+		int groups = 0;
+		for (Chunk c : data.chunks()) {
+			if (MD5.toLong(c.getHash()) < 0 && c.getHash() != null) {
+				count += 1;
+			}
+			if (c.getWord() != null) {
+				count += 1;
+			}
+			index(c.getType(), attributes, attributesTable);
+			index(c.getUnit(), attributes, attributesTable);
+			Collection<Definition> defs = data.definitions(c.getHash());
+			if (defs != null && !defs.isEmpty()) {
+				groups += 1;
+				for (Definition d : defs) {
+					if (d.getText() != null) {
+						count += 1;
+					}
+				}
+			}
+		}
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				stream, BUFFER_SIZE));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(attributesTable.size() + count);
+		// tabella: prima tipi e unità, poi hash non validi e parole, infine i
+		// testi delle definizioni
+		for (String s : attributesTable) {
+			writeString(out, s);
+		}
+		for (Chunk c : data.chunks()) {
+			if (MD5.toLong(c.getHash()) < 0 && c.getHash() != null) {
+				writeString(out, c.getHash());
+			}
+			if (c.getWord() != null) {
+				writeString(out, c.getWord());
+			}
+		}
+		for (Chunk c : data.chunks()) {
+			Collection<Definition> defs = data.definitions(c.getHash());
+			if (defs != null) {
+				for (Definition d : defs) {
+					if (d.getText() != null) {
+						writeString(out, d.getText());
+					}
+				}
+			}
+		}
+		// chunks
+		int next = attributesTable.size();
+		out.writeInt(data.chunks().size());
+		for (Chunk c : data.chunks()) {
+			long hash = MD5.toLong(c.getHash());
+			out.writeLong(hash);
+			if (hash < 0) {
+				out.writeInt(c.getHash() != null ? next++ : NULL_STRING);
+			}
+			out.writeInt(c.getWord() != null ? next++ : NULL_STRING);
+			out.writeInt(indexOf(c.getType(), attributes));
+			out.writeInt(indexOf(c.getUnit(), attributes));
+		}
+		// definizioni, con lo stesso ordine dei chunk
+		out.writeInt(groups);
+		int position = 0;
+		for (Chunk c : data.chunks()) {
+			Collection<Definition> defs = data.definitions(c.getHash());
+			if (defs != null && !defs.isEmpty()) {
+				out.writeInt(position);
+				out.writeInt(defs.size());
+				for (Definition d : defs) {
+					out.writeInt(d.getText() != null ? next++ : NULL_STRING);
+				}
+			}
+			position += 1;
+		}
+		out.flush();
+	}
+
+	/**
+	 * Scrive una stringa come lunghezza in byte seguita dai byte UTF-8. A
+	 * differenza di writeUTF non c'è il limite di 64KB.
+	 */
+	static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Legge una stringa scritta con {@link #writeString(DataOutputStream, String)}
+	 */
+	static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void index(String s, Map<String, Integer> indexes,
+			List<String> table) {
+		if (s != null && !indexes.containsKey(s)) {
+			indexes.put(s, table.size());
+			table.add(s);
+		}
+	}
+
+	private static int indexOf(String s, Map<String, Integer> indexes) {
+		if (s == null) {
+			return NULL_STRING;
+		}
+		return indexes.get(s);
+	}
+
+	private static String string(String[] strings, int index) {
+		if (index == NULL_STRING) {
+			return null;
+		}
+		return strings[index];
+	}
+
+	private static String readHash(DataInputStream in, String[] strings)
+			throws IOException {
+		long value = in.readLong();
+		if (value < 0) {
+			return string(strings, in.readInt());
+		}
+		return MD5.toHash(value);
+	}
+}
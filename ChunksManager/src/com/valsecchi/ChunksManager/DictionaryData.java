@@ -1,910 +1,2617 @@
-package com.valsecchi.ChunksManager;
-
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import org.jdom2.Document;
-import org.jdom2.Element;
-import org.jdom2.JDOMException;
-import org.jdom2.input.SAXBuilder;
-import org.jdom2.output.Format;
-import org.jdom2.output.XMLOutputter;
-
-import com.valsecchi.ChunksManager.Chunk;
-import com.valsecchi.ChunksManager.Definition;
-
-/**
- * La classe DictionaryData  il cuore dei dati dell'applicazione. Essa
- * gestisce, a basso livello, gli spostamenti di Chunks e definizioni, agendo
- * direttamente sulle lista dei Chunk e Definition. La classe fornisce i metodi
- * base per aggiungere, eliminare, modificare i dati. Inoltre la classe fornisce
- * il metodo {@link #refreshData()} che sincronizza e aggiorna i dati con il
- * file dizionario. Questa classe fornisce i metodi base di gestione del
- * dizionario alla classe DictionaryManager, che si presenta a un pi alto
- * livello di astrazione e interagisce direttamente con il livello client del
- * dizionario.
- * 
- * @author Davide Valsecchi
- * @version v.0.0.0
- * @since v.0.0.0
- * @see com.valsecchi.ChunksManager.DictionaryManager
- * 
- */
-public class DictionaryData {
-
-	/**
-	 * Mappa che contiene tutti gli oggetti Chunk indicizzati con la loro hash
-	 */
-	private Map<String, Chunk> chunksMap;
-	/**
-	 * Lista che contiene tutte le definizioni del dizionario
-	 */
-	private Map<String, List<Definition>> defsMap;
-	/**
-	 * Mappa che contiene la lista di definizioni da eliminare per ogni chunk
-	 * rappresentato dal codice hash. Le definizioni vengono raggruppate a
-	 * seconda dell'hash
-	 */
-	private Map<String, List<Definition>> defsToDelete;
-	private List<String> chunksToDelete;
-	private boolean dictionaryLoaded = false;
-	private Path dictPath;
-
-	/**
-	 * Costruttore che richiede la path del dizionario.
-	 * 
-	 */
-	public DictionaryData(Path _path) {
-		chunksMap = new HashMap<>();
-		defsMap = new HashMap<>();
-		defsToDelete = new HashMap<>();
-		chunksToDelete = new ArrayList<>();
-		dictPath = _path;
-	}
-
-	/**
-	 * Metodo che carica in memoria il dizionario memorizzaro in
-	 * {@link #dictPath}. E' importante che il client di questo metodo controlli
-	 * precedentemente che il file dizionario esiste altrimenti il metodo
-	 * rilancer l'eccezione IOException.
-	 * 
-	 * @return ritorna il dizionaro caricato, null se non  stato caricato correttamente
-	 * @throws IOException
-	 *             l'eccezione viene lanciata se si hanno problemi nella lettura
-	 *             del file dizionario.
-	 */
-	public DictionaryData loadData() throws IOException {
-		SAXBuilder builder = new SAXBuilder();
-		Document doc;
-		try {
-			doc = builder.build(dictPath.toFile());
-		} catch (JDOMException e) {
-			return null;
-		}
-		Element root = doc.getRootElement();
-		// si ricava la lista di chunks
-		List<Element> _chunks = root.getChildren("Chunks");
-		for (Element chu : _chunks) {
-			String hash, type, unit, word;
-			hash = chu.getChildText("hash");
-			word = chu.getChildText("chunk");
-			type = chu.getChildText("type");
-			unit = chu.getChildText("unit");
-
-			Chunk newChunk = new Chunk(word, hash, type, unit);
-			// si aggiunge alla mappa
-			this.chunksMap.put(hash, newChunk);
-		}
-		// ora si ricavano le definizioni
-		List<Element> _defs = root.getChildren("Definitions");
-		for (Element def : _defs) {
-			String _hash, definition;
-			_hash = def.getChildText("hash");
-			definition = def.getChildText("definition");
-			Definition newDef = new Definition(_hash, definition);
-			// si aggiunge alla lista
-			this.addDefinition(newDef);
-		}
-		dictionaryLoaded = true;
-		// il processo  completato
-		return this;
-	}
-
-	/**
-	 * Il metodo refreshData() permette la <i> sincronizzazione </i> del
-	 * DictionaryData corrente con un altro DictionaryData. Questo metodo viene
-	 * utilizzato solitamente per aggiornare i dati in un contesto in cui il
-	 * file dizionario  condiviso tra diversi utenti: si ha cos la necessit
-	 * di scrivere i dati aggiunti, ma anche di aggiornare quelli gi presenti.
-	 * Inoltre viene eseguito un controllo su ogni chunk del dictionario passato
-	 * come parametro per il refresh di quello corrente, in modo tale da
-	 * verificare se esso deve essere eliminato definitivamente; lo stesso
-	 * controllo viene applicato per le definizioni. N.B.: i chunk e le
-	 * definizioni marcate come da eliminare non vengono eliminate dal
-	 * DictionaryData di confronto, ma semplicemente non vengono presi in
-	 * considerazione per il refresh; questo permette al DictionaryData corrente
-	 * di mantenere il suo stato, perch solo i dati aggiornati vengono
-	 * aggiunti, e non quelli gi eliminati in precedenza.
-	 * 
-	 * 
-	 * @param data
-	 *            viene richiesto come argomento un oggetto DictionaryData da
-	 *            confrontare con quello corrente
-	 */
-	public void refreshData(DictionaryData data) {
-		// si recupera una lista di tutti i chunk del dictionary esterno
-		List<Chunk> externalChunks = data.getAllChunks();
-		// lista dei chunks interni
-		List<Chunk> internalChunks = this.getAllChunks();
-		// array di boolean che memorizza i chunk trovati;
-		boolean[] chunksFounded = new boolean[externalChunks.size()];
-		// ora si inizia il confronto
-		int index = 0;
-		for (Chunk extC : externalChunks) {
-			// variabile che indica se  stato trovato
-			boolean founded = false;
-			for (Chunk intC : internalChunks) {
-				if (extC.getHash().equals(intC.getHash())) {
-					founded = true;
-					// si esce dal ciclo
-					break;
-				}
-			}
-			// si memorizza se  stato trovato
-			chunksFounded[index] = founded;
-			index += 1;
-		}
-		// ora si scorre l'array di boolean che indica quali chunks sono gi
-		// presenti
-		for (int k = 0; k < chunksFounded.length; k++) {
-			if (chunksFounded[k] == false) {
-				// se il chunk non  stato trovato si controlla che non era da
-				// eliminare
-				if (this.getChunkMustBeRemoved(externalChunks.get(k)) == true) {
-					// se era da eliminare allora non si considera e si continua
-					// il ciclo
-					continue;
-				}
-				// se non  da eliminare si aggiunge
-				this.addChunk(externalChunks.get(k));
-				// ora si inseriscono anche le definizioni
-				this.addDefinitions(externalChunks.get(k).getHash(),
-						data.getDefinitions(externalChunks.get(k)));
-				// il controllo se le definizioni esistono gi  compreso nel
-				// metodo addDefinitions();
-			} else {
-				// se il chunk  gi presente allora si controllano le sue
-				// definizioni: se alcune sono da eliminare o no
-				List<Definition> extDef = data.getDefinitions(externalChunks
-						.get(k));
-				// si controlla se ci sono definizioni da eliminare per questo
-				// chunk
-				boolean[] to_delete = this.getDefinitionsMustBeRemoved(
-						externalChunks.get(k).getHash(), extDef);
-				// si prosegue solo se ce ne sono da eliminare
-				// si controlla se to_delete non  null
-				if (to_delete != null) {
-					// quelle da eliminare in pratica non vengono eliminate da
-					// data,
-					// ma solo dalla lista di quelle da aggiungere.
-					for (int z = 0; z < to_delete.length; z++) {
-						if (to_delete[z] == true) {
-							// viene rimossa dalla lista la defiizione
-							extDef.remove(z);
-						}
-					}
-				}
-				// ora si aggiungono le definizioni. Il controllo se le
-				// definizioni esistono gi  compreso nel
-				// metodo addDefinitions();
-				this.addDefinitions(externalChunks.get(k).getHash(), extDef);
-			}
-		}
-		// completata la sincronizzazione
-	}
-
-	/**
-	 * Metodo che riscrive il file dizionario partendo dai dati in memoria. Esso
-	 * utilizza i comandi base della libreria jdom2 ricorstruendo un documento e
-	 * salvandolo nella path passata dall'utente.
-	 * 
-	 * @param path
-	 *            percorso in cui salvare il dizionario
-	 * @throws IOException
-	 *             viene lanciata l'eccezione se ci sono problemi con la
-	 *             scrittura del file
-	 */
-	public void writeData(Path path) throws IOException {
-		// nuovo document
-		Element root = new Element("ChunksDictionary");
-		Document newD = new Document(root);
-		// lista di hash per ricavare le definizioni
-		List<String> hashs = new ArrayList<>();
-		// si aggiungono tutti gli elementi
-		// nuovo document
-		// ciclo per i chunk
-		for (Chunk c : this.chunksMap.values()) {
-			// nuovo chunk radice
-			Element chunk = new Element("Chunks");
-			// aggiunta degli elementi
-			Element h = new Element("hash");
-			h.setText(c.getHash());
-			chunk.addContent(h);
-			Element k = new Element("chunk");
-			k.setText(c.getWord());
-			chunk.addContent(k);
-			Element t = new Element("type");
-			t.setText(c.getType());
-			chunk.addContent(t);
-			Element u = new Element("unit");
-			u.setText(c.getUnit());
-			chunk.addContent(u);
-			// si aggiunte a root
-			root.addContent(chunk);
-			// si memorizza la hash
-			hashs.add(c.getHash());
-		}
-		// ciclo per le definizioni
-		for (String hash : hashs) {
-			for (Definition d : this.defsMap.get(hash)) {
-				// nuovo definition radice
-				Element def = new Element("Definitions");
-				// aggiunta elementi
-				Element h = new Element("hash");
-				h.setText(d.getHash());
-				def.addContent(h);
-				Element definit = new Element("definition");
-				definit.setText(d.getText());
-				def.addContent(definit);
-				// si aggiunge a root
-				root.addContent(def);
-			}
-		}
-		// ora si scrive il document
-		XMLOutputter outputter = new XMLOutputter();
-		outputter.setFormat(Format.getPrettyFormat());
-		// scrittura
-		try {
-			outputter.output(newD, new FileOutputStream(path.toString()));
-		} catch (IOException e) {
-			// si rilancia l'eccezione
-			throw e;
-		}
-	}
-
-	/**
-	 * Metodo che aggiunge un Chunk ai dati, controllando che non sia gi
-	 * presente
-	 * 
-	 * @param chunk_to_add
-	 *            chunk da aggiungere
-	 * @return ritorna True se il chunk  stato aggiunto correttamente
-	 */
-	public boolean addChunk(Chunk chunk_to_add) {
-		// si controlla prima che non esista gi
-		if (chunkExist(chunk_to_add) == false) {
-			chunksMap.put(chunk_to_add.getHash(), chunk_to_add);
-			return true;
-		} else {
-			return false;
-		}
-	}
-
-	/**
-	 * Metodo che rimuove un chunk dalla lista. N.B.: questo metodo provoca la
-	 * rimozione anche di tutte le definizioni associate. Inoltre l'hash del
-	 * chunk viene memorizzato, in modo tale che al refresh del dictionary si
-	 * verificher la cancellazione del chunk se ancora presente e verranno
-	 * anche cancellate tutte le relative definizioni.
-	 * 
-	 * @param hash
-	 *            hash del chunk da rimuovere
-	 * @return ritorna True se le operazioni vanno a buon fine
-	 */
-	public boolean removeChunk(String hash) {
-		// l'esistenza del chunk  controllata in getChunk()
-		Chunk current = this.getChunk(hash);
-		if (current != null) {
-			this.chunksMap.remove(current);
-			// si aggiunge l'hash alla lista dei chunk eliminati
-			this.chunksToDelete.add(current.getHash());
-			// ora si rimuovono le definizioni
-			this.removeAllDefinitions(hash);
-			return true;
-		} else {
-			return false;
-		}
-	}
-
-	/**
-	 * Metodo che rimuove un chunk dalla lista. N.B.: questo metodo provoca la
-	 * rimozione anche di tutte le definizioni associate. Inoltre l'hash del
-	 * chunk viene memorizzato, in modo tale che al refresh del dictionary si
-	 * verificher la cancellazione del chunk se ancora presente e verranno
-	 * anche cancellate tutte le relative definizioni.
-	 * 
-	 * @param chunk
-	 *            chunk da rimuovere
-	 * @return ritorna True se le operazioni vanno a buon fine
-	 */
-	public boolean removeChunk(Chunk chunk) {
-		// si controlla se esiste
-		if (this.chunkExist(chunk)) {
-			this.chunksMap.remove(chunk);
-			// si aggiunge l'hash alla lista dei chunk eliminati
-			this.chunksToDelete.add(chunk.getHash());
-			// ora si rimuovono le definizioni
-			this.removeAllDefinitions(chunk.getHash());
-			return true;
-		} else {
-			return false;
-		}
-	}
-
-	/**
-	 * Metodo che aggiunge le difinitioni di un chunk identificato dal suo
-	 * codice hash.
-	 * 
-	 * @param hash
-	 *            codice hash delle definizioni
-	 * @param defs
-	 *            lista di definizioni da aggiungere.
-	 * @return ritorna un array di boolean che indica quali definizioni sono
-	 *         state aggiunte. Se  False, vuol dire che la definizione non
-	 *         esisteva ed  stata aggiunta, se True significa che la
-	 *         definizione esisteva gi; se  null significa che tutte le
-	 *         definizioni sono state aggiunte
-	 * 
-	 */
-	public boolean[] addDefinitions(String hash, List<Definition> defs) {
-		// prima si ricava un array di boolean per controllare se esistono o no
-		boolean[] exists = this.definitionsExist(hash, defs);
-		if (exists != null) {
-			for (int i = 0; i < defs.size(); i++) {
-				if (exists[i] == false) {
-					// si aggiunge la definizione
-					// prima si controlla che esista gi un elemento
-					if (this.defsMap.containsKey(hash)) {
-						// si aggiunge
-						this.defsMap.get(hash).add(defs.get(i));
-					} else {
-						// se no si aggiunge l'elemento
-						List<Definition> newList = new ArrayList<>();
-						newList.add(defs.get(i));
-						this.defsMap.put(hash, newList);
-					}
-				}
-			}
-		} else {
-			// si aggiungono tutte
-			// prima si controlla che esista gi un elemento
-			if (this.defsMap.containsKey(hash)) {
-				// si aggiungono
-				this.defsMap.get(hash).addAll(defs);
-			} else {
-				// se no si aggiungono
-				this.defsMap.put(hash, defs);
-			}
-		}
-		return exists;
-	}
-
-	/**
-	 * Per la documentazione del metodo vedere
-	 * {@link #addDefinitions(String, List)}, questo metodo  diverso solo
-	 * perch accetta una definizione invece di una lista.
-	 * 
-	 * @param def
-	 *            definizione da aggiungere
-	 * @return ritorna False se  stata aggiunta, perch vuol dire che non
-	 *         esisteva
-	 */
-	public boolean addDefinition(Definition def) {
-		String hash = def.getHash();
-		boolean exist = this.definitionExist(def);
-		// si aggiunge
-		if (exist == false) {
-			// si aggiunge la definizione
-			// prima si controlla che esista gi un elemento
-			if (this.defsMap.containsKey(hash)) {
-				// si aggiunge
-				this.defsMap.get(hash).add(def);
-			} else {
-				// se no si aggiunge l'elemento
-				List<Definition> newList = new ArrayList<>();
-				newList.add(def);
-				this.defsMap.put(hash, newList);
-			}
-		}
-		return exist;
-	}
-
-	/**
-	 * Metodo che rimuove tutte le definizioni legate a un certo codice hash
-	 * 
-	 * @param hash
-	 *            codice hash che identifica le definizioni da rimuovere
-	 */
-	public void removeAllDefinitions(String hash) {
-		// si rimuove l'elemento relativo all'insieme delle definizioni con
-		// questo hash
-		this.chunksMap.remove(hash);
-	}
-
-	/**
-	 * Metodo che rimuove le definizioni del paramentro defs, se presenti,
-	 * aventi hashcode uguale a quello passato come parametro. Questo metodo
-	 * rimuove solo quindi le definizioni solo le legate allo stesso chunk.
-	 * Inoltre le definizioni eliminate verranno aggiunte alla mappa
-	 * {@link #defsToDelete}, in modo tale che al refresh del dictionary, le
-	 * definizioni verranno oppurtunamente cancellate e aggiornate.
-	 * 
-	 * @param hash
-	 *            codice hash delle definizioni
-	 * @param defs_to_delete
-	 *            lista di definizioni da eliminare
-	 * @return Viene restituito un array di boolean che rappresenta quali
-	 *         definizioni sono state eliminate e quali no. Se  True vuol dire
-	 *         che (essendo presente)  stata eliminata. Se si ritorna null
-	 *         significa che l'hash non era presente, quindi le definizioni non
-	 *         ci sono e non sono nemmeno da rimuovere.
-	 */
-	public boolean[] removeDefinitions(String hash,
-			List<Definition> defs_to_delete) {
-		// si ricava se le definizioni esistono
-		boolean[] exists = this.definitionsExist(hash, defs_to_delete);
-		// si controlla che sia stato trovato l'hash corrispondente
-		if (exists != null) {
-			// lista per inserire le definizioni eliminare
-			List<Definition> toDelete = new ArrayList<>();
-			for (int i = 0; i < defs_to_delete.size(); i++) {
-				if (exists[i] == true) {
-					// allora si elimina dalla lista
-					this.defsMap.get(hash).remove(defs_to_delete.get(i));
-					// si aggiunge alla lista da eliminare
-					toDelete.add(defs_to_delete.get(i));
-				}
-			}
-			// ora si controlla se c' gi un elemento con la stessa hash in
-			// this.defsToDelete
-			if (this.defsToDelete.containsKey(hash)) {
-				// se  gi contenuto si aggiungono
-				this.defsToDelete.get(hash).addAll(toDelete);
-			} else {
-				// se non c' si crea e si agginge la lista
-				this.defsToDelete.put(hash, toDelete);
-			}
-			return exists;
-		} else {
-			// se non c' l'hash si ritorna null
-			return null;
-		}
-	}
-
-	/**
-	 * Vedere metodo {@link #removeDefinition(String, Definition)}, la
-	 * differenza  che questo metodo accetta una sola definizione e non una
-	 * lista.
-	 * 
-	 * @param hash
-	 *            hash della definizione da eliminare
-	 * @param def_to_delete
-	 *            definizione da eliminare
-	 * @return ritorna True se la definizione  stata eliminata
-	 */
-	public boolean removeDefinition(Definition def_to_delete) {
-		// si controlla se esiste
-		boolean exist = this.definitionExist(def_to_delete);
-		// se esiste si eliminare e si aggiunge alla lista da
-		// eliminare
-		if (exist) {
-			// si rimuove
-			this.defsMap.get(def_to_delete.getHash()).remove(def_to_delete);
-			// ora si controlla se c' gi un elemento con la stessa hash in
-			// this.defsToDelete
-			String hash = def_to_delete.getHash();
-			if (this.defsToDelete.containsKey(hash)) {
-				// se  gi contenuto si aggiungono
-				this.defsToDelete.get(def_to_delete.getHash());
-			} else {
-				// se non c' si crea e si aggiunge la definizione
-				List<Definition> toPut = new ArrayList<>();
-				toPut.add(def_to_delete);
-				this.defsToDelete.put(hash, toPut);
-			}
-		}
-		return exist;
-	}
-
-	/**
-	 * Metodo che restituisce un chunk dato un certo hash. Se il chunk non
-	 * esiste si restituisce null.
-	 * 
-	 * @param hash
-	 * @return
-	 */
-	public Chunk getChunk(String hash) {
-		// si controlla se il chunk esiste
-		if (chunkExist(hash) == true) {
-			return chunksMap.get(hash);
-		} else {
-			return null;
-		}
-	}
-
-	/**
-	 * Il metodo effettua una ricerca fra i chunks come
-	 * {@link #getChunksByWord(String)}, ma restituisce solo il chunk la cui
-	 * parola  esattamente uguale al parametro.
-	 * 
-	 * @param word
-	 *            parola del chunk da cercare
-	 * @return ritorna il chunk se trovato, se no null
-	 */
-	public Chunk getChunkBySpecificWord(String word) {
-		Chunk result = null;
-		for (Chunk ck : this.chunksMap.values()) {
-			// da notare l'uso di equals e non contains
-			if (ck.getWord().equals(word)) {
-				result = ck;
-				break;
-			}
-		}
-		return result;
-	}
-
-	/**
-	 * Metodo public che effettua una ricerca tra i vari chunk e restituisce
-	 * quelli che contengono il pattern specificato. La ricerca viene effettuata
-	 * solo sulla parola che caratterizza il chunk. Il metodo viene lasciato
-	 * public perch  di comodo utilizzo e accessibile dall'esterno senza
-	 * riferimenti ai dati interni. La ricerca non controlla l'identit
-	 * dell'eguaglianza ma solo se pattern  contenuto
-	 * 
-	 * @param pattern
-	 *            filtro da confrontare con i chunks per la ricerca. Il filtro
-	 *            pu contenere anche espressioni regolari
-	 * @return ritorna una lista di chunks che corrispondono ai criteri di
-	 *         ricerca.
-	 */
-	public List<Chunk> getChunksByWord(String pattern) {
-		// lista in cui inserire i risultati
-		List<Chunk> results = new ArrayList<>();
-		for (Chunk ck : this.chunksMap.values()) {
-			if (ck.getWord().contains(pattern)) {
-				results.add(ck);
-			}
-		}
-		return results;
-	}
-
-	/**
-	 * Metodo private che effettua una ricerca tra i chunk passati come
-	 * parametro e restituisce quelli che sono del tipo specificato.
-	 * 
-	 * @param listChunk
-	 *            lista di chunk tra cui cercare
-	 * @param type
-	 *            il tipo di chunk da cercare
-	 * @return ritorna una lista di chunk che corrispondono ai criteri di
-	 *         ricerca.
-	 */
-	private List<Chunk> getChunksByType(Collection<Chunk> listChunk, String type) {
-		// si ricercano i chunk per tipo tra quelli nella lista in argomento
-		List<Chunk> results = new ArrayList<>();
-		for (Chunk c : listChunk) {
-			// il tipo non deve corrispondere perfettamente, cosi si pu
-			// scrivere pi di un tipo
-			if (c.getType().contains(type)) {
-				results.add(c);
-			}
-		}
-		return results;
-	}
-
-	/**
-	 * Metodo private che effettua una ricerca tra i chunk passati come
-	 * parametro e restituisce quelli che sono del specificato.
-	 * 
-	 * @param listChunk
-	 *            lista di chunk tra cui cercare
-	 * @param unit
-	 *            l'unit da cercare
-	 * @return ritorna una lista di chunk che corrispondono ai criteri di
-	 *         ricerca.
-	 */
-	private List<Chunk> getChunksByUnit(Collection<Chunk> listChunk, String unit) {
-		// si ricercano i chunks per unita tra quelli in lista
-		List<Chunk> results = new ArrayList<>();
-		for (Chunk ck : listChunk) {
-			// l'unita deve corrispondere perfettamente
-			if (ck.getUnit().equals(unit)) {
-				results.add(ck);
-			}
-		}
-		return results;
-	}
-
-	/**
-	 * Metodo pubblico che ricerca tra i chunks specificando tre
-	 * parametri:pattern,type e unit. Questo metodo apponggiandosi a
-	 * {@link #getChunksByWord(String)},
-	 * {@link #getChunksByType(Collection, String)},
-	 * {@link #getChunksByUnit(Collection, String)}, ricerca i chunk
-	 * corrispondenti. *
-	 * 
-	 * @param pattern
-	 *            si riferisce alla parola del chunk da cercare
-	 * @param type
-	 *            tipo del chunk da cercare
-	 * @param unit
-	 *            unit del chunk da cercare
-	 * @return ritorna una lista di chunk che corrispondono ai criteri di
-	 *         ricerca.
-	 */
-	public List<Chunk> getChunksWithArguments(String pattern, String type,
-			String unit) {
-		// prima si controlla se il pattern  nullo
-		if (pattern.equals("")) {
-			// allora si controlla il type
-			if (type.equals("")) {
-				// ora si controlla l'unit
-				if (unit.equals("")) {
-					// allora si restituiscono tutti i chunk
-					return this.getAllChunks();
-				} else {
-					// allora si ricerca solo per unit passando tutti i chunks
-					return this.getChunksByUnit(this.chunksMap.values(), unit);
-				}
-			} else {
-				// se il tipo non nullo
-				// si ricerca per tipo
-				List<Chunk> temp1 = this.getChunksByType(
-						this.chunksMap.values(), type);
-				// si controlla l'unit
-				if (unit.equals("")) {
-					// si esce
-					return temp1;
-				} else {
-					// si ricerca anche per unit
-					return this.getChunksByUnit(temp1, unit);
-				}
-			}
-		} else {
-			// se il pattern non  nullo si ricavano prima tutti i chunks con un
-			// nome
-			List<Chunk> temp = this.getChunksByWord(pattern);
-			// poi si controlla come sopra
-			if (type.equals("")) {
-				// ora si controlla l'unit
-				if (unit.equals("")) {
-					// allora si restituiscono i chunks in temp
-					return temp;
-				} else {
-					// allora si ricerca solo per unit passando temp
-					return this.getChunksByUnit(temp, unit);
-				}
-			} else {
-				// se il tipo non nullo
-				// si ricerca per tipo
-				List<Chunk> temp2 = this.getChunksByType(temp, type);
-				// si controlla l'unit
-				if (unit.equals("")) {
-					// si ritorna temp2
-					return temp2;
-				} else {
-					// si ricerca anche per unit
-					return this.getChunksByUnit(temp2, unit);
-				}
-			}
-		}
-	}
-
-	/**
-	 * Metodo che restituisce tutti i chunk della lista.
-	 * 
-	 * @return Restituisce tutti i chunks della lista
-	 */
-	public List<Chunk> getAllChunks() {
-		// si restituisce tutta la lista di chunk
-		List<Chunk> results = new ArrayList<>();
-		for (Chunk c : this.chunksMap.values()) {
-			results.add(c);
-		}
-		return results;
-	}
-
-	/**
-	 * Metodo che controlla l'esistenza di un chunk
-	 * 
-	 * @param chunk
-	 *            chunk di cui controllare l'esistenza
-	 * @return
-	 */
-	public boolean chunkExist(Chunk chunk) {
-		return chunkExist(chunk.getHash());
-	}
-
-	/**
-	 * Metodo che controlla l'esistenza di un chunk
-	 * 
-	 * @param hash
-	 *            codice hash per il confronto
-	 * @return restituisce True se il chunk  in lista
-	 */
-	public boolean chunkExist(String hash) {
-		return chunksMap.containsKey(hash);
-	}
-
-	/**
-	 * Metodo che restituisce un array di Definition che hanno un certo codice
-	 * hash. Differente da {@link #getDefinition(String)} poich questo metodo
-	 * accetta un argomento di tipo Chunk. Almeno una definizione  sempre
-	 * presente.
-	 * 
-	 * @param chunk
-	 *            Chunk per la ricerca.
-	 * @return
-	 */
-	public List<Definition> getDefinitions(Chunk chunk) {
-		return getDefinitions(chunk.getHash());
-	}
-
-	/**
-	 * Metodo che restituisce un array di Definition che hanno un certo codice
-	 * hash. Almeno una definizione  sempre presente.
-	 * 
-	 * @param hash
-	 *            codice hash per il confronto
-	 * @return
-	 */
-	public List<Definition> getDefinitions(String hash) {
-		// si ricavano le definizioni dal map di definizioni
-		return this.defsMap.get(hash);
-	}
-
-	/**
-	 * Metodo che controlla l'esistenza delle definizioni di un chunk. E'
-	 * fondamentale che le definizioni appertengano tutte a un solo chunk,
-	 * quello con l'hash passata come argomento.
-	 * 
-	 * @param defs
-	 *            lista di definizioni da controllare
-	 * @param hash
-	 *            hash delle definizioni da cercare
-	 * @return restituisce un array di boolean che indica o meno l'esistenza di
-	 *         ognuna delle definizioni nella lista. Ritorna True se la
-	 *         definizione  gi presente.Ritorna null se non ci sono
-	 *         definizioni per questo hash
-	 */
-	public boolean[] definitionsExist(String hash, List<Definition> defs) {
-		// si controlla se la lista di definizioni esiste
-		// devono essere tutte dello stesso chunk
-		// si ricava la lista dei definizioni esistenti
-		// si controlla che ci sia l'elemnto con questo hash
-		if (this.defsMap.containsKey(hash) == false) {
-			return null;
-		}
-		List<Definition> founded = this.getDefinitions(hash);
-		boolean[] listB = new boolean[defs.size()];
-		int index = 0;
-		for (Definition d1 : defs) {
-			boolean is_present = false;
-			for (Definition f1 : founded) {
-				if (d1.getText().equals(f1.getText())) {
-					is_present = true;
-				}
-			}
-			listB[index] = is_present;
-			index += 1;
-		}
-		return listB;
-	}
-
-	/**
-	 * Per documentazione vedere {@link #definitionsExist(String, List)}, la
-	 * differenza  che questo metodo accetta solo una definizione.
-	 * 
-	 * @param hash
-	 *            hash della definizione da cercare
-	 * @return ritorna True se la definizione  stata trovata.
-	 */
-	public boolean definitionExist(Definition def) {
-		// si ricava la lista dei definizioni esistenti
-		if (this.defsMap.containsKey(def.getHash())) {
-			return this.defsMap.get(def.getHash()).contains(def);
-		} else {
-			return false;
-		}
-	}
-
-	/**
-	 * Metodo che controlla se il chunk rappresentato dall'hash passato come
-	 * parametro deve essere eliminato al refresh o no.
-	 * 
-	 * @param hash
-	 *            codice hash che identifica il chunk
-	 * @return restituisce True se il chunk deve essere eliminato
-	 */
-	public boolean getChunkMustBeRemoved(String hash) {
-		return this.chunksToDelete.contains(hash);
-	}
-
-	/**
-	 * Metodo che controlla se il chunk passato come parametro deve essere
-	 * eliminato al refresh o no.
-	 * 
-	 * @param chunk
-	 *            chunk da controllare
-	 * @return restituisce True se il chunk deve essere eliminato
-	 */
-	public boolean getChunkMustBeRemoved(Chunk chunk) {
-		return this.getChunkMustBeRemoved(chunk.getHash());
-	}
-
-	/**
-	 * Metodo che controlla se le definizioni passate come parametro e facenti
-	 * riferimento a un certo hash, siano da eliminare o no. Restituisce True se
-	 * la definione  da eliminare, null se non ci sono definizioni con questo
-	 * hash.
-	 * 
-	 * @param hash
-	 *            codice hash che identifica le definizioni
-	 * @param defs
-	 *            array di definitioni da controllare
-	 * @return restituisce un array di boolean che indica quali definizioni
-	 *         siano da eliminare. Restituisce True se la definione  da
-	 *         eliminare. Restituisce null se non ci sono definizioni con questa
-	 *         hash.
-	 */
-	public boolean[] getDefinitionsMustBeRemoved(String hash,
-			List<Definition> defs) {
-		// si ricavano le definizioni da eliminare memorizzate per lo specifico
-		// hash.
-		// se l'hash non  presente si esce
-		if (this.defsToDelete.containsKey(hash) == false) {
-			return null;
-		}
-		List<Definition> toDelete = this.defsToDelete.get(hash);
-		boolean[] to_del = new boolean[defs.size()];
-		int index = 0;
-		for (Definition d1 : defs) {
-			boolean founded = false;
-			for (Definition d2 : toDelete) {
-				if (d2.getText().equals(d1.getText())) {
-					founded = true;
-				}
-			}
-			to_del[index] = founded;
-			index += 1;
-		}
-		// si restituisce il risultato
-		return to_del;
-	}
-
-	/**
-	 * Propriet che indica se il dizionario  stato caricato
-	 * 
-	 * @return True se il dizionario  stato caricato correttamente in memoria.
-	 */
-	public boolean isDictionaryLoaded() {
-		return this.dictionaryLoaded;
-	}
-
-	/**
-	 * Metodo che svuota la memoria e cancella tutti i chunk e le definizioni
-	 * memorizzate
-	 */
-	public void clear() {
-		chunksMap.clear();
-		defsMap.clear();
-		defsToDelete.clear();
-		chunksToDelete.clear();
-	}
-
-}
+package com.valsecchi.ChunksManager;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import com.valsecchi.ChunksManager.Chunk;
+import com.valsecchi.ChunksManager.Definition;
+
+/**
+ * La classe DictionaryData è il cuore dei dati dell'applicazione. Essa
+ * gestisce, a basso livello, gli spostamenti di Chunks e definizioni, agendo
+ * direttamente sulle lista dei Chunk e Definition. La classe fornisce i metodi
+ * base per aggiungere, eliminare, modificare i dati. Inoltre la classe fornisce
+ * il metodo {@link #refreshData()} che sincronizza e aggiorna i dati con il
+ * file dizionario. Questa classe fornisce i metodi base di gestione del
+ * dizionario alla classe DictionaryManager, che si presenta a un più alto
+ * livello di astrazione e interagisce direttamente con il livello client del
+ * dizionario.
+ * <p>
+ * Gli oggetti DictionaryData possono essere condivisi tra più thread: i metodi
+ * di ricerca vengono eseguiti contemporaneamente, mentre quelli che
+ * modificano i dati attendono la fine delle ricerche in corso e vengono
+ * eseguiti uno alla volta. Al termine di ogni modifica viene pubblicata una
+ * versione immutabile dei chunk e delle definizioni, {@link #getSnapshot()}:
+ * la lettura dei chunk e delle definizioni e i salvataggi utilizzano
+ * l'ultima versione senza lock, quindi non attendono le modifiche e non le
+ * bloccano.
+ * 
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryManager
+ * 
+ */
+public class DictionaryData {
+
+	/**
+	 * Mappa che contiene tutti gli oggetti Chunk indicizzati con la loro hash.
+	 * Questa mappa e quelle delle definizioni memorizzano l'hash come long,
+	 * vedere {@link LongHashMap}.
+	 */
+	private LongHashMap<Chunk> chunksMap;
+	/**
+	 * Indice che associa la parola di ogni chunk alla sua hash, per ricercare
+	 * un chunk dalla parola senza scorrere tutta la mappa
+	 */
+	private Map<String, String> wordsMap;
+	/**
+	 * Lista dei chunk indicizzati con un id denso, utilizzato dagli indici al
+	 * posto dell'hash. Gli id dei chunk eliminati rimangono vuoti (null) fino
+	 * alla ricostruzione degli indici.
+	 */
+	private List<Chunk> chunksById;
+	/**
+	 * Mappa che associa l'hash di ogni chunk al suo id
+	 */
+	private LongHashMap<Integer> idsMap;
+	/**
+	 * Numero di id vuoti in {@link #chunksById}
+	 */
+	private int removedIds = 0;
+	/**
+	 * Numero di volte in cui gli id dei chunk sono stati riassegnati. Viene
+	 * inserito nei token delle pagine di risultati, che contengono un id e non
+	 * sono più validi dopo la riassegnazione.
+	 */
+	private int generation = 0;
+	/**
+	 * Indice degli n-grammi delle parole per la ricerca per pattern
+	 */
+	private NGramIndex ngramIndex;
+	/**
+	 * Albero radix delle parole per il completamento dei prefissi
+	 */
+	private WordTrie wordTrie;
+	/**
+	 * Indici bitmap di tipo e unità dei chunk
+	 */
+	private AttributeIndex typesIndex;
+	private AttributeIndex unitsIndex;
+	/**
+	 * Numero minimo di id vuoti prima di ricostruire gli indici
+	 */
+	private static final int MIN_REMOVED_IDS = 1024;
+	/**
+	 * Numero minimo di chunk verificati da ogni thread in
+	 * {@link #verifyHashes()}
+	 */
+	private static final int MIN_VERIFY_BATCH = 4096;
+	/**
+	 * Dimensione del buffer di lettura del file dizionario
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/**
+	 * Costanti del checksum FNV-1a dei record, vedere {@link #mergedRecords}
+	 */
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+	/**
+	 * Mappa che contiene le definizioni di ogni chunk, indicizzate con l'hash
+	 * del chunk. Le definizioni di un chunk sono a loro volta identificate dal
+	 * testo, mantenendo l'ordine di inserimento, vedere {@link DefinitionSet}.
+	 */
+	private LongHashMap<DefinitionSet> defsMap;
+	/**
+	 * Indice invertito dei termini delle definizioni, aggiornato insieme a
+	 * {@link #defsMap} per i chunk presenti negli indici
+	 */
+	private DefinitionIndex definitionIndex;
+	/**
+	 * Automa di Aho-Corasick delle parole per {@link #annotate(Reader, boolean)}
+	 * e automa dei chunk aggiunti dopo la sua costruzione; null se vanno
+	 * costruiti
+	 */
+	private ChunkAutomaton automaton;
+	private ChunkAutomaton deltaAutomaton;
+	/**
+	 * Numero minimo di chunk aggiunti prima di ricostruire l'automa
+	 * principale invece di quello dei chunk aggiunti
+	 */
+	private static final int MIN_DELTA_IDS = 1024;
+	/**
+	 * Mappa che contiene i testi delle definizioni da eliminare per ogni chunk
+	 * rappresentato dal codice hash. Le definizioni vengono raggruppate a
+	 * seconda dell'hash
+	 */
+	private LongHashMap<Set<String>> defsToDelete;
+	/**
+	 * Insieme degli hash dei chunk eliminati
+	 */
+	private Set<String> chunksToDelete;
+	private boolean dictionaryLoaded = false;
+	private Path dictPath;
+	/**
+	 * Formato del file dizionario: {@link #XML_FORMAT} o
+	 * {@link #BINARY_FORMAT}. Viene rilevato da {@link #loadData()} e
+	 * utilizzato da {@link #writeData(Path, boolean)}.
+	 */
+	private int format = XML_FORMAT;
+	public static final int XML_FORMAT = 0;
+	public static final int BINARY_FORMAT = 1;
+	/**
+	 * Indica che il formato è stato cambiato e il file dizionario deve essere
+	 * riscritto per intero al prossimo salvataggio
+	 */
+	private boolean formatChanged = false;
+	/**
+	 * Incrementato quando il giornale smette di contenere tutte le modifiche
+	 * fatte dopo l'ultima riscrittura del file dizionario, cioè quando i dati
+	 * vengono svuotati da {@link #clear()} o iniziano a essere registrati
+	 * senza essere stati caricati. Finché è diverso da rewritten, valore
+	 * presente all'inizio dell'ultima riscrittura riuscita, il file dizionario
+	 * deve essere riscritto per intero al prossimo salvataggio.
+	 */
+	private int unjournaled = 0;
+	private int rewritten = 0;
+	/**
+	 * Giornale delle modifiche fatte dopo il caricamento
+	 */
+	private DictionaryJournal journal;
+	/**
+	 * Lock che permette più letture contemporanee e una sola modifica alla
+	 * volta
+	 */
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	/**
+	 * Lock delle operazioni sul file dizionario, che vengono eseguite una
+	 * alla volta. Viene preso prima del lock sul file, vedere
+	 * {@link DictionaryLock}, e prima di {@link #lock}.
+	 */
+	private final ReentrantLock saveLock = new ReentrantLock();
+	/**
+	 * Versione del file dizionario, vedere {@link DictionaryLock}, a cui
+	 * corrispondono i dati in memoria: se la versione sul disco non è
+	 * cambiata non serve rileggere il file. -1 se il file non è stato letto.
+	 */
+	private long version = -1;
+	/**
+	 * Impronte del file dizionario e del giornale a cui corrispondono i dati
+	 * in memoria, vedere {@link FileFingerprint}; null se il file non è stato
+	 * letto. Come {@link #version} sono protette da {@link #saveLock}.
+	 */
+	private FileFingerprint dictFingerprint;
+	private FileFingerprint journalFingerprint;
+	/**
+	 * Checksum del record di ogni chunk, con le sue definizioni, letto dal
+	 * file dizionario all'ultimo refresh. Se il record nel file non è
+	 * cambiato e il chunk non è stato modificato in memoria, il refresh
+	 * successivo non lo confronta.
+	 */
+	private final LongHashMap<Long> mergedRecords = new LongHashMap<>();
+	/**
+	 * Indica se vengono aggiornati gli indici di ricerca e le versioni
+	 * immutabili dei dati. I dati letti per il refresh servono solo per il
+	 * confronto e non li costruiscono, vedere {@link #refreshData()}.
+	 */
+	private final boolean indexed;
+	/**
+	 * Ultima versione immutabile dei chunk e delle definizioni, letta senza
+	 * lock da {@link #getSnapshot()}, dai metodi di lettura e dai salvataggi
+	 */
+	private volatile DictionarySnapshot snapshot;
+	/**
+	 * Hash dei chunk e delle definizioni modificati dopo l'ultima versione
+	 */
+	private final Set<String> changedChunks = new HashSet<>();
+	private final Set<String> changedDefinitions = new HashSet<>();
+	/**
+	 * Indica che la prossima versione va costruita da tutti i dati, dopo il
+	 * caricamento o lo svuotamento del dizionario: in questo caso le
+	 * modifiche non vengono registrate
+	 */
+	private boolean rebuildSnapshot = false;
+	/**
+	 * Politica di sincronizzazione su disco dei file scritti:
+	 * {@link #SYNC_ALWAYS}, {@link #SYNC_ON_CLOSE} o {@link #SYNC_NEVER}
+	 */
+	private int syncPolicy = SYNC_ON_CLOSE;
+	/**
+	 * Ogni scrittura, compresa l'aggiunta di record al giornale, viene forzata
+	 * su disco prima di ritornare
+	 */
+	public static final int SYNC_ALWAYS = 0;
+	/**
+	 * Il file dizionario viene forzato su disco alla chiusura, prima di
+	 * sostituire quello esistente; i record del giornale no
+	 */
+	public static final int SYNC_ON_CLOSE = 1;
+	/**
+	 * Nessuna scrittura viene forzata su disco, la sincronizzazione è lasciata
+	 * al sistema operativo
+	 */
+	public static final int SYNC_NEVER = 2;
+	/**
+	 * Nella ricerca tra le definizioni, i chunk devono contenere tutti i
+	 * termini cercati
+	 */
+	public static final int ALL_TERMS = 0;
+	/**
+	 * Nella ricerca tra le definizioni, i chunk devono contenere almeno uno
+	 * dei termini cercati
+	 */
+	public static final int ANY_TERM = 1;
+
+	/**
+	 * Costruttore che richiede la path del dizionario.
+	 * 
+	 */
+	public DictionaryData(Path _path) {
+		this(_path, true);
+	}
+
+	private DictionaryData(Path _path, boolean _indexed) {
+		indexed = _indexed;
+		chunksMap = new LongHashMap<>();
+		wordsMap = new HashMap<>();
+		chunksById = new ArrayList<>();
+		idsMap = new LongHashMap<>();
+		ngramIndex = new NGramIndex(NGramIndex.DEFAULT_LENGTH);
+		wordTrie = new WordTrie();
+		typesIndex = new AttributeIndex();
+		unitsIndex = new AttributeIndex();
+		defsMap = new LongHashMap<>();
+		definitionIndex = new DefinitionIndex();
+		defsToDelete = new LongHashMap<>();
+		chunksToDelete = new HashSet<>();
+		dictPath = _path;
+		journal = new DictionaryJournal(_path);
+		snapshot = new DictionarySnapshot(PersistentHashMap.<Chunk> empty(),
+				PersistentHashMap.<Definition[]> empty(), format);
+	}
+
+	/**
+	 * Metodo che carica in memoria il dizionario memorizzaro in
+	 * {@link #dictPath}. E' importante che il client di questo metodo controlli
+	 * precedentemente che il file dizionario esiste altrimenti il metodo
+	 * rilancerà l'eccezione IOException. Il formato del file, XML o binario,
+	 * viene riconosciuto automaticamente. Dopo il file base vengono riapplicate
+	 * le modifiche registrate nel giornale del dizionario. Durante la lettura
+	 * gli altri processi non possono modificare il file, vedere
+	 * {@link DictionaryLock}.
+	 * 
+	 * @return ritorna il dizionaro caricato, null se non è stato caricato correttamente
+	 * @throws IOException
+	 *             l'eccezione viene lanciata se si hanno problemi nella lettura
+	 *             del file dizionario.
+	 */
+	public DictionaryData loadData() throws IOException {
+		saveLock.lock();
+		try (DictionaryLock fileLock = DictionaryLock.shared(dictPath)) {
+			DictionaryData loaded = this.load();
+			if (loaded != null) {
+				// le impronte sono state calcolate durante la lettura
+				version = fileLock.getVersion();
+			}
+			return loaded;
+		} finally {
+			saveLock.unlock();
+		}
+	}
+
+	/**
+	 * Metodo privato che carica il dizionario senza prendere il lock sul
+	 * file, vedere {@link #loadData()}. Il CRC32 del file dizionario e del
+	 * giornale viene calcolato durante la lettura per le impronte.
+	 */
+	private DictionaryData load() throws IOException {
+		lock.writeLock().lock();
+		try {
+			// il file viene letto in streaming: chunks e definizioni vengono
+			// inseriti direttamente nelle mappe senza costruire il documento
+			rebuildSnapshot = true;
+			mergedRecords.clear();
+			boolean valid;
+			CRC32 crc = new CRC32();
+			long length;
+			try (FileChannel channel = FileChannel.open(dictPath,
+					StandardOpenOption.READ)) {
+				InputStream in = new BufferedInputStream(
+						new CheckedInputStream(Channels.newInputStream(channel),
+								crc), BUFFER_SIZE) {
+					@Override
+					public void close() {
+						// il parser XML chiude lo stream alla fine del
+						// documento, il canale viene chiuso dal try
+					}
+				};
+				if (DictionaryBinary.isBinary(in)) {
+					format = BINARY_FORMAT;
+					valid = DictionaryBinary.read(in, this);
+				} else {
+					format = XML_FORMAT;
+					try {
+						DictionaryXML.read(in, this);
+						valid = true;
+					} catch (XMLStreamException e) {
+						valid = false;
+					}
+				}
+				if (valid) {
+					// il CRC32 deve comprendere anche i byte finali non letti
+					// dal parser
+					byte[] rest = new byte[BUFFER_SIZE];
+					while (in.read(rest) >= 0) {
+						// i byte servono solo per il CRC32
+					}
+				}
+				length = channel.position();
+			}
+			if (valid == false) {
+				// si scartano i dati caricati parzialmente
+				this.clear();
+				return null;
+			}
+			// si riapplicano le modifiche del giornale, che sono ormai salvate:
+			// non devono essere considerate come da eliminare al refresh
+			journal.replay(this);
+			dictFingerprint = FileFingerprint.of(dictPath, length,
+					crc.getValue());
+			journalFingerprint = journal.fingerprint();
+			defsToDelete.clear();
+			chunksToDelete.clear();
+			// da ora le modifiche vengono registrate
+			journal.setRecording(true);
+			dictionaryLoaded = true;
+			// il processo è completato
+			return this;
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Metodo utilizzato durante il caricamento del dizionario per inserire un
+	 * chunk letto dal file. Come nel caricamento originale il chunk viene
+	 * inserito senza controllarne l'esistenza.
+	 * 
+	 * @param chunk
+	 *            chunk letto dal file dizionario
+	 */
+	void loadChunk(Chunk chunk) {
+		Chunk old = this.chunksMap.get(chunk.getHash());
+		if (old != null) {
+			this.deleteChunk(old);
+		}
+		this.putChunk(chunk);
+	}
+
+	/**
+	 * Metodo privato che inserisce un chunk nella mappa e negli indici
+	 * 
+	 * @param chunk
+	 *            chunk da inserire
+	 */
+	private void putChunk(Chunk chunk) {
+		this.chunksMap.put(chunk.getHash(), chunk);
+		this.chunkChanged(chunk.getHash());
+		this.indexChunk(chunk);
+	}
+
+	/**
+	 * Metodo privato che elimina un chunk dalla mappa e dagli indici
+	 * 
+	 * @param chunk
+	 *            chunk da eliminare
+	 */
+	private void deleteChunk(Chunk chunk) {
+		this.chunksMap.remove(chunk.getHash());
+		this.chunkChanged(chunk.getHash());
+		this.unindexChunk(chunk);
+	}
+
+	private void indexChunk(Chunk chunk) {
+		// a parità di parola rimane indicizzato il primo chunk inserito
+		if (this.wordsMap.containsKey(chunk.getWord()) == false) {
+			this.wordsMap.put(chunk.getWord(), chunk.getHash());
+		}
+		if (indexed == false) {
+			// la parola serve solo per riapplicare il giornale
+			return;
+		}
+		int id = this.chunksById.size();
+		this.chunksById.add(chunk);
+		this.idsMap.put(chunk.getHash(), id);
+		this.ngramIndex.add(id, chunk.getWord());
+		this.wordTrie.add(id, chunk.getWord());
+		this.typesIndex.add(id, chunk.getType());
+		this.unitsIndex.add(id, chunk.getUnit());
+		// le definizioni possono essere state caricate prima del chunk
+		DefinitionSet defs = this.defsMap.get(chunk.getHash());
+		if (defs != null) {
+			for (Definition d : defs.values()) {
+				this.definitionIndex.add(id, d.getText());
+			}
+		}
+	}
+
+	private void unindexChunk(Chunk chunk) {
+		String hash = this.wordsMap.get(chunk.getWord());
+		if (hash != null && hash.equals(chunk.getHash())) {
+			this.wordsMap.remove(chunk.getWord());
+		}
+		Integer id = this.idsMap.remove(chunk.getHash());
+		if (id != null) {
+			this.chunksById.set(id, null);
+			this.ngramIndex.remove(id, chunk.getWord());
+			this.wordTrie.remove(id, chunk.getWord());
+			this.typesIndex.remove(id, chunk.getType());
+			this.unitsIndex.remove(id, chunk.getUnit());
+			DefinitionSet defs = this.defsMap.get(chunk.getHash());
+			if (defs != null) {
+				for (Definition d : defs.values()) {
+					this.definitionIndex.remove(id, d.getText());
+				}
+			}
+			this.removedIds += 1;
+			// se gli id vuoti sono troppi si ricostruiscono gli indici
+			if (this.removedIds > MIN_REMOVED_IDS
+					&& this.removedIds > this.chunksById.size() / 2) {
+				this.rebuildIndexes();
+			}
+		}
+	}
+
+	/**
+	 * Metodo privato che ricostruisce tutti gli indici dei chunk partendo da
+	 * {@link #chunksMap}, assegnando nuovi id senza spazi vuoti.
+	 */
+	private void rebuildIndexes() {
+		this.generation += 1;
+		this.wordsMap.clear();
+		this.chunksById.clear();
+		this.idsMap.clear();
+		this.ngramIndex.clear();
+		this.wordTrie.clear();
+		this.definitionIndex.clear();
+		// gli id cambiano, quindi gli automi vanno ricostruiti
+		this.automaton = null;
+		this.deltaAutomaton = null;
+		this.typesIndex.clear();
+		this.unitsIndex.clear();
+		this.removedIds = 0;
+		for (Chunk c : this.chunksMap.values()) {
+			this.indexChunk(c);
+		}
+	}
+
+	/**
+	 * Metodo che imposta la lunghezza degli n-grammi utilizzati
+	 * dall'indice per la ricerca dei chunk con
+	 * {@link #getChunksByWord(String)}. I pattern più corti di questa
+	 * lunghezza vengono cercati scorrendo tutti i chunk, mentre n-grammi più
+	 * lunghi rendono l'indice più selettivo ma più grande. L'indice viene
+	 * ricostruito.
+	 * 
+	 * @param length
+	 *            lunghezza degli n-grammi, deve essere maggiore di zero
+	 */
+	public void setNGramLength(int length) {
+		lock.writeLock().lock();
+		try {
+			this.ngramIndex = new NGramIndex(length);
+			this.rebuildIndexes();
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Il metodo refreshData() permette la <i> sincronizzazione </i> del
+	 * DictionaryData corrente con un altro DictionaryData. Questo metodo viene
+	 * utilizzato solitamente per aggiornare i dati in un contesto in cui il
+	 * file dizionario è condiviso tra diversi utenti: si ha così la necessità
+	 * di scrivere i dati aggiunti, ma anche di aggiornare quelli già presenti.
+	 * Inoltre viene eseguito un controllo su ogni chunk del dictionario passato
+	 * come parametro per il refresh di quello corrente, in modo tale da
+	 * verificare se esso deve essere eliminato definitivamente; lo stesso
+	 * controllo viene applicato per le definizioni. N.B.: i chunk e le
+	 * definizioni marcate come da eliminare non vengono eliminate dal
+	 * DictionaryData di confronto, ma semplicemente non vengono presi in
+	 * considerazione per il refresh; questo permette al DictionaryData corrente
+	 * di mantenere il suo stato, perchè solo i dati aggiornati vengono
+	 * aggiunti, e non quelli già eliminati in precedenza.
+	 * 
+	 * 
+	 * @param data
+	 *            viene richiesto come argomento un oggetto DictionaryData da
+	 *            confrontare con quello corrente
+	 */
+	public void refreshData(DictionaryData data) {
+		lock.writeLock().lock();
+		try {
+			if (data == null) {
+				// il file dizionario non è valido, non c'è niente da aggiornare
+				return;
+			}
+			// si confronta la versione corrente del dizionario esterno, che non
+			// cambia durante il confronto
+			DictionarySnapshot external = data.getSnapshot();
+			// i chunk esterni vengono cercati per hash nella mappa interna, quindi
+			// il confronto è lineare nel numero di chunk di entrambi i dizionari
+			for (Chunk extC : external.chunks()) {
+				this.merge(extC, external.definitions(extC.getHash()));
+			}
+			// completata la sincronizzazione
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Metodo privato che aggiorna i dati con un chunk esterno e le sue
+	 * definizioni, vedere {@link #refreshData(DictionaryData)}
+	 * 
+	 * @param extC
+	 *            chunk del dizionario esterno
+	 * @param extDef
+	 *            definizioni del chunk esterno, null se non ne ha
+	 * @return l'hash del chunk in questo dizionario, null se il chunk è stato
+	 *         eliminato e non viene considerato
+	 */
+	private String merge(Chunk extC, Collection<Definition> extDef) {
+		String extHash = extC.getHash();
+		// hash del chunk in questo dizionario
+		String hash = extHash;
+		Chunk intC = this.chunksMap.get(extHash);
+		if (intC == null || sameWord(intC, extC) == false) {
+			String own = this.wordsMap.get(extC.getWord());
+			if (own != null) {
+				// la parola è già presente con un altro hash
+				hash = own;
+			} else if (intC != null) {
+				// collisione: l'hash è assegnato a un'altra parola, quindi
+				// il chunk esterno riceve un hash alternativo
+				hash = this.resolveHash(extC.getWord());
+				this.addChunk(new Chunk(extC.getWord(), hash, extC.getType(),
+						extC.getUnit()));
+			} else if (this.chunksToDelete.contains(extHash)) {
+				// se il chunk non è presente ed era da eliminare allora
+				// non si considera
+				return null;
+			} else {
+				// se non è da eliminare si aggiunge
+				this.addChunk(extC);
+			}
+		}
+		if (extDef == null) {
+			return hash;
+		}
+		// le definizioni da eliminare non vengono eliminate da data, ma
+		// solo escluse da quelle da aggiungere
+		Set<String> toDelete = this.defsToDelete.get(hash);
+		List<Definition> toAdd = new ArrayList<>(extDef.size());
+		for (Definition d : extDef) {
+			if (toDelete == null || toDelete.contains(d.getText()) == false) {
+				toAdd.add(hash.equals(extHash) ? d : new Definition(hash, d
+						.getText()));
+			}
+		}
+		// ora si aggiungono le definizioni. Il controllo se le
+		// definizioni esistono già è compreso nel metodo addDefinitions();
+		if (toAdd.isEmpty() == false) {
+			this.addDefinitions(hash, toAdd);
+		}
+		return hash;
+	}
+
+	/**
+	 * Metodo privato che esegue il refresh come
+	 * {@link #refreshData(DictionaryData)}, confrontando solo i chunk il cui
+	 * record nel file è cambiato dall'ultimo refresh o che sono stati
+	 * modificati in memoria. Il dizionario esterno viene letto direttamente
+	 * dalle mappe, quindi deve essere stato caricato da questo thread.
+	 */
+	private void refreshChanged(DictionaryData data) {
+		lock.writeLock().lock();
+		try {
+			if (data == null) {
+				return;
+			}
+			for (Chunk extC : data.chunksMap.values()) {
+				String extHash = extC.getHash();
+				DefinitionSet extDefs = data.defsMap.get(extHash);
+				long checksum = recordChecksum(extC, extDefs);
+				Long merged = this.mergedRecords.get(extHash);
+				if (merged != null && merged.longValue() == checksum) {
+					// già confrontato e non modificato da allora
+					continue;
+				}
+				String hash = this.merge(extC,
+						extDefs == null ? null : extDefs.values());
+				// i chunk ricevuti con un altro hash vengono confrontati ogni
+				// volta. Il confronto ha rimosso il checksum precedente.
+				if (extHash.equals(hash)) {
+					this.mergedRecords.put(extHash, checksum);
+				}
+			}
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Checksum FNV-1a a 64 bit di un chunk e delle sue definizioni
+	 */
+	private static long recordChecksum(Chunk chunk, DefinitionSet defs) {
+		long checksum = FNV_OFFSET;
+		checksum = checksum(checksum, chunk.getWord());
+		checksum = checksum(checksum, chunk.getType());
+		checksum = checksum(checksum, chunk.getUnit());
+		if (defs != null) {
+			for (Definition d : defs.values()) {
+				checksum = checksum(checksum, d.getText());
+			}
+		}
+		return checksum;
+	}
+
+	private static long checksum(long checksum, String text) {
+		if (text != null) {
+			for (int i = 0; i < text.length(); i++) {
+				checksum = (checksum ^ text.charAt(i)) * FNV_PRIME;
+			}
+		}
+		// separatore fuori dall'intervallo dei caratteri, diverso per null e
+		// per la stringa vuota
+		return (checksum ^ (text == null ? 0x10000 : 0x10001)) * FNV_PRIME;
+	}
+
+	/**
+	 * Metodo che riscrive il file dizionario partendo dai dati in memoria nel
+	 * formato leggibile. Vedere {@link #writeData(Path, boolean)}.
+	 * 
+	 * @param path
+	 *            percorso in cui salvare il dizionario
+	 * @throws IOException
+	 *             viene lanciata l'eccezione se ci sono problemi con la
+	 *             scrittura del file
+	 */
+	public void writeData(Path path) throws IOException {
+		writeData(path, false);
+	}
+
+	/**
+	 * Metodo che riscrive il file dizionario partendo dai dati in memoria nel
+	 * formato impostato con {@link #setFormat(int)}. I chunk e le definizioni
+	 * vengono scritti in streaming su un file bufferizzato, senza costruire in
+	 * memoria il documento XML. Il salvataggio è atomico: i dati vengono
+	 * scritti in un file temporaneo nella stessa cartella, sincronizzato su
+	 * disco secondo {@link #setSyncPolicy(int)}, che poi sostituisce il file
+	 * originale. In caso di errore il file originale rimane intatto. Durante
+	 * la scrittura il file è bloccato per gli altri processi e al termine ne
+	 * viene incrementata la versione, vedere {@link DictionaryLock}.
+	 * 
+	 * @param path
+	 *            percorso in cui salvare il dizionario
+	 * @param compact
+	 *            se True il file XML viene scritto senza indentazione, più
+	 *            piccolo e veloce da scrivere. Non ha effetto sul formato
+	 *            binario
+	 * @throws IOException
+	 *             viene lanciata l'eccezione se ci sono problemi con la
+	 *             scrittura del file
+	 */
+	public void writeData(Path path, boolean compact) throws IOException {
+		saveLock.lock();
+		try (DictionaryLock fileLock = DictionaryLock.exclusive(path)) {
+			this.write(path, compact, fileLock);
+		} finally {
+			saveLock.unlock();
+		}
+	}
+
+	/**
+	 * Metodo privato che scrive il file dizionario, vedere
+	 * {@link #writeData(Path, boolean)}, con il lock sul file già preso e
+	 * incrementa la versione del file
+	 */
+	private void write(Path path, boolean compact, DictionaryLock fileLock)
+			throws IOException {
+		// si scrive la versione corrente dei dati senza il lock dei dati in
+		// memoria, così le modifiche fatte durante la scrittura non vengono
+		// bloccate e restano nel giornale
+		DictionarySnapshot current;
+		int mark;
+		int policy;
+		int journaled;
+		lock.readLock().lock();
+		try {
+			current = this.snapshot;
+			mark = journal.mark();
+			policy = syncPolicy;
+			journaled = unjournaled;
+		} finally {
+			lock.readLock().unlock();
+		}
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		CRC32 crc = new CRC32();
+		long length;
+		try {
+			try (FileChannel channel = FileChannel.open(temp,
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				// il CRC32 per l'impronta viene calcolato durante la scrittura
+				OutputStream out = new CheckedOutputStream(
+						Channels.newOutputStream(channel), crc);
+				if (current.format == BINARY_FORMAT) {
+					DictionaryBinary.write(current, out);
+				} else {
+					DictionaryXML.write(current, out, compact);
+				}
+				length = channel.position();
+				if (policy != SYNC_NEVER) {
+					channel.force(true);
+				}
+			}
+			// si sostituisce il file originale
+			try {
+				Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException | RuntimeException e) {
+			// il file originale non è stato toccato, si elimina quello
+			// temporaneo
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+		if (policy == SYNC_ALWAYS) {
+			syncDirectory(path);
+		}
+		long written = fileLock.nextVersion(policy != SYNC_NEVER);
+		// se è stato riscritto il file dizionario il giornale non serve più,
+		// tranne le modifiche fatte durante la scrittura
+		if (path.equals(dictPath)) {
+			lock.writeLock().lock();
+			try {
+				journal.reset(mark);
+				if (format == current.format) {
+					formatChanged = false;
+				}
+				rewritten = journaled;
+				version = written;
+			} finally {
+				this.unlockWrite();
+			}
+			dictFingerprint = FileFingerprint.of(dictPath, length,
+					crc.getValue());
+			journalFingerprint = journal.fingerprint();
+		}
+	}
+
+	/**
+	 * Metodo che salva le modifiche fatte al dizionario nel file
+	 * {@link #dictPath}. Le modifiche vengono aggiunte in coda al giornale del
+	 * dizionario, così il tempo di salvataggio dipende dalla dimensione delle
+	 * modifiche e non da quella del dizionario. Il file dizionario viene
+	 * riscritto per intero con {@link #writeData(Path, boolean)} solo quando il
+	 * giornale diventa troppo grande (checkpoint), quando il file non esiste,
+	 * quando è stato cambiato il formato o quando il giornale non contiene
+	 * tutte le modifiche, dopo {@link #clear()} o se il dizionario non è stato
+	 * caricato. La riscrittura salva la versione dei
+	 * dati presente all'inizio del salvataggio e non blocca le altre
+	 * operazioni.
+	 * 
+	 * @param compact
+	 *            vedere {@link #writeData(Path, boolean)}
+	 * @throws IOException
+	 *             viene lanciata l'eccezione se ci sono problemi con la
+	 *             scrittura dei file
+	 */
+	public void saveData(boolean compact) throws IOException {
+		saveLock.lock();
+		try (DictionaryLock fileLock = DictionaryLock.exclusive(dictPath)) {
+			boolean checkpoint;
+			boolean committed = false;
+			lock.readLock().lock();
+			try {
+				checkpoint = formatChanged || unjournaled != rewritten
+						|| Files.exists(dictPath) == false
+						|| journal.needsCheckpoint(Files.size(dictPath));
+				if (checkpoint == false && journal.hasPending()) {
+					// il lock in lettura impedisce di aggiungere record durante
+					// la scrittura del giornale
+					journal.commit(syncPolicy == SYNC_ALWAYS);
+					committed = true;
+				}
+			} finally {
+				lock.readLock().unlock();
+			}
+			if (checkpoint && journal.isRecording() == false) {
+				// il dizionario non è stato caricato: le modifiche fatte da ora
+				// vengono registrate e il file viene riscritto per intero
+				// finché una riscrittura non riesce
+				lock.writeLock().lock();
+				try {
+					journal.setRecording(true);
+					unjournaled += 1;
+				} finally {
+					this.unlockWrite();
+				}
+			}
+			if (checkpoint) {
+				this.write(dictPath, compact, fileLock);
+			} else if (committed) {
+				// anche il giornale fa parte della versione del dizionario
+				long written = fileLock.nextVersion(syncPolicy != SYNC_NEVER);
+				if (version == written - 1) {
+					version = written;
+					journalFingerprint = journal.fingerprint();
+				}
+			}
+		} finally {
+			saveLock.unlock();
+		}
+	}
+
+	/**
+	 * Metodo che aggiorna i dati con le modifiche salvate da altri processi
+	 * nel file {@link #dictPath}, come {@link #refreshData(DictionaryData)}.
+	 * Il refresh è ottimistico: il file viene riletto solo se la sua versione,
+	 * vedere {@link DictionaryLock}, o la sua impronta, vedere
+	 * {@link FileFingerprint}, sono cambiate dall'ultima lettura o scrittura.
+	 * Il file riletto non viene indicizzato e vengono confrontati solo i chunk
+	 * il cui record nel file è cambiato dall'ultimo refresh, o che sono stati
+	 * modificati in memoria.
+	 * 
+	 * @return True se il file è stato riletto, False se non era cambiato
+	 * @throws IOException
+	 *             se ci sono problemi nella lettura del file dizionario
+	 */
+	public boolean refreshData() throws IOException {
+		saveLock.lock();
+		try (DictionaryLock fileLock = DictionaryLock.shared(dictPath)) {
+			return this.refresh(fileLock);
+		} finally {
+			saveLock.unlock();
+		}
+	}
+
+	/**
+	 * Metodo per più processi che modificano lo stesso dizionario
+	 * ({@link DictionaryManager#ONLINE_MODE}): aggiorna i dati con le modifiche
+	 * salvate dagli altri processi, come {@link #refreshData()}, e poi
+	 * riscrive il file dizionario con {@link #writeData(Path, boolean)}. Il
+	 * file rimane bloccato dalla lettura alla scrittura, quindi le modifiche
+	 * degli altri processi non vengono perse, e viene riletto solo se è
+	 * cambiato.
+	 * 
+	 * @param compact
+	 *            vedere {@link #writeData(Path, boolean)}
+	 * @throws IOException
+	 *             se ci sono problemi nella lettura o nella scrittura dei file
+	 */
+	public void synchronizeData(boolean compact) throws IOException {
+		saveLock.lock();
+		try (DictionaryLock fileLock = DictionaryLock.exclusive(dictPath)) {
+			this.refresh(fileLock);
+			this.write(dictPath, compact, fileLock);
+		} finally {
+			saveLock.unlock();
+		}
+	}
+
+	/**
+	 * Metodo privato che esegue il refresh con il lock sul file già preso, se
+	 * la versione del file è cambiata
+	 */
+	private boolean refresh(DictionaryLock fileLock) throws IOException {
+		long current = fileLock.getVersion();
+		Path journalPath = journal.getPath();
+		if (current == version && dictFingerprint != null
+				&& dictFingerprint.unchanged(dictPath)
+				&& journalFingerprint.unchanged(journalPath)) {
+			// nessuno ha modificato i file
+			return false;
+		}
+		// la versione o la data di modifica sono cambiate, ma i file
+		// potrebbero essere stati riscritti con lo stesso contenuto
+		FileFingerprint dictFiles = FileFingerprint.of(dictPath);
+		FileFingerprint journalFiles = FileFingerprint.of(journalPath);
+		boolean journalChanged = journalFiles
+				.sameContent(journalFingerprint) == false;
+		boolean changed = journalChanged
+				|| dictFiles.sameContent(dictFingerprint) == false;
+		if (journalChanged) {
+			// il giornale è stato modificato da un altro processo, il suo
+			// CRC32 va ricalcolato al prossimo salvataggio
+			journal.forgetContent();
+		}
+		if (changed && Files.exists(dictPath)) {
+			// il file viene letto senza costruire gli indici e si confrontano
+			// solo i chunk cambiati dall'ultimo refresh
+			this.refreshChanged(new DictionaryData(dictPath, false).load());
+		}
+		dictFingerprint = dictFiles;
+		journalFingerprint = journalFiles;
+		version = current;
+		return changed;
+	}
+
+	/**
+	 * Metodo che sincronizza su disco la cartella del file, in modo che anche
+	 * la sostituzione del file sia persistente. Non tutti i sistemi operativi
+	 * permettono di aprire una cartella, in quel caso non si fa nulla.
+	 */
+	private static void syncDirectory(Path path) {
+		Path dir = path.toAbsolutePath().getParent();
+		if (dir == null) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(dir,
+				StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// non supportato
+		}
+	}
+
+	/**
+	 * Metodo che aggiunge un Chunk ai dati, controllando che non sia già
+	 * presente. Se l'hash del chunk è già assegnato a una parola diversa
+	 * (l'hash è solo una parte dell'MD5, quindi parole diverse possono avere
+	 * lo stesso hash) viene aggiunto un chunk con la stessa parola e l'hash
+	 * restituito da {@link #resolveHash(String)}, che si può ricavare con
+	 * {@link #getChunkBySpecificWord(String)}.
+	 * 
+	 * @param chunk_to_add
+	 *            chunk da aggiungere
+	 * @return ritorna True se il chunk è stato aggiunto correttamente
+	 */
+	public boolean addChunk(Chunk chunk_to_add) {
+		lock.writeLock().lock();
+		try {
+			Chunk current = this.chunksMap.get(chunk_to_add.getHash());
+			if (current != null) {
+				if (sameWord(current, chunk_to_add)) {
+					// il chunk esiste già
+					return false;
+				}
+				// collisione: si cerca un hash alternativo per la parola
+				String hash = this.resolveHash(chunk_to_add.getWord());
+				if (this.chunksMap.containsKey(hash)) {
+					// la parola era già presente con un hash alternativo
+					return false;
+				}
+				chunk_to_add = new Chunk(chunk_to_add.getWord(), hash,
+						chunk_to_add.getType(), chunk_to_add.getUnit());
+			}
+			putChunk(chunk_to_add);
+			journal.chunkAdded(chunk_to_add);
+			return true;
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Metodo che restituisce l'hash con cui la parola è o verrebbe
+	 * memorizzata in questo dizionario. Se la parola è già presente si
+	 * restituisce l'hash del suo chunk; altrimenti l'hash normale della
+	 * parola, o se questo è già assegnato a una parola diversa il primo hash
+	 * alternativo libero (vedere {@link MD5#GetHash(String, int)}).
+	 * L'hash alternativo viene salvato nel file dizionario insieme al chunk,
+	 * quindi non cambia ai caricamenti successivi.
+	 * 
+	 * @param word
+	 *            parola di cui ricavare l'hash
+	 * @return l'hash della parola in questo dizionario
+	 * @throws IllegalStateException
+	 *             se tutti gli hash alternativi sono occupati
+	 */
+	public String resolveHash(String word) {
+		lock.readLock().lock();
+		try {
+			String hash = this.wordsMap.get(word);
+			if (hash != null) {
+				return hash;
+			}
+			for (int salt = 0; salt <= MD5.MAX_SALT; salt++) {
+				hash = MD5.GetHash(word, salt);
+				Chunk current = this.chunksMap.get(hash);
+				if (current == null || word.equals(current.getWord())) {
+					return hash;
+				}
+			}
+			throw new IllegalStateException("no free hash for word: " + word);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private static boolean sameWord(Chunk a, Chunk b) {
+		return a.getWord() == null ? b.getWord() == null : a.getWord().equals(
+				b.getWord());
+	}
+
+	/**
+	 * Metodo che rimuove un chunk dalla lista. N.B.: questo metodo provoca la
+	 * rimozione anche di tutte le definizioni associate. Inoltre l'hash del
+	 * chunk viene memorizzato, in modo tale che al refresh del dictionary si
+	 * verificherà la cancellazione del chunk se ancora presente e verranno
+	 * anche cancellate tutte le relative definizioni.
+	 * 
+	 * @param hash
+	 *            hash del chunk da rimuovere
+	 * @return ritorna True se le operazioni vanno a buon fine
+	 */
+	public boolean removeChunk(String hash) {
+		lock.writeLock().lock();
+		try {
+			// l'esistenza del chunk è controllata in getChunk()
+			Chunk current = this.getChunk(hash);
+			if (current != null) {
+				this.deleteChunk(current);
+				// si aggiunge l'hash alla lista dei chunk eliminati
+				this.chunksToDelete.add(current.getHash());
+				journal.chunkRemoved(current.getHash());
+				// ora si rimuovono le definizioni
+				this.removeAllDefinitions(hash);
+				return true;
+			} else {
+				return false;
+			}
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Metodo che rimuove un chunk dalla lista. N.B.: questo metodo provoca la
+	 * rimozione anche di tutte le definizioni associate. Inoltre l'hash del
+	 * chunk viene memorizzato, in modo tale che al refresh del dictionary si
+	 * verificherà la cancellazione del chunk se ancora presente e verranno
+	 * anche cancellate tutte le relative definizioni.
+	 * 
+	 * @param chunk
+	 *            chunk da rimuovere
+	 * @return ritorna True se le operazioni vanno a buon fine
+	 */
+	public boolean removeChunk(Chunk chunk) {
+		lock.writeLock().lock();
+		try {
+			// si controlla se esiste
+			if (this.chunkExist(chunk)) {
+				this.deleteChunk(this.getChunk(chunk.getHash()));
+				// si aggiunge l'hash alla lista dei chunk eliminati
+				this.chunksToDelete.add(chunk.getHash());
+				journal.chunkRemoved(chunk.getHash());
+				// ora si rimuovono le definizioni
+				this.removeAllDefinitions(chunk.getHash());
+				return true;
+			} else {
+				return false;
+			}
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Metodo che aggiunge le difinitioni di un chunk identificato dal suo
+	 * codice hash.
+	 * 
+	 * @param hash
+	 *            codice hash delle definizioni
+	 * @param defs
+	 *            lista di definizioni da aggiungere.
+	 * @return ritorna un array di boolean che indica quali definizioni sono
+	 *         state aggiunte. Se è False, vuol dire che la definizione non
+	 *         esisteva ed è stata aggiunta, se True significa che la
+	 *         definizione esisteva già; se è null significa che tutte le
+	 *         definizioni sono state aggiunte
+	 * 
+	 */
+	public boolean[] addDefinitions(String hash, List<Definition> defs) {
+		lock.writeLock().lock();
+		try {
+			// prima si ricava un array di boolean per controllare se esistono o no
+			boolean[] exists = this.definitionsExist(hash, defs);
+			DefinitionSet current = this.definitionsOf(hash);
+			for (Definition d : defs) {
+				// si aggiungono solo le definizioni non presenti
+				if (current.add(d)) {
+					this.indexDefinition(hash, d.getText());
+					journal.definitionAdded(d);
+				}
+			}
+			return exists;
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Per la documentazione del metodo vedere
+	 * {@link #addDefinitions(String, List)}, questo metodo è diverso solo
+	 * perchè accetta una definizione invece di una lista.
+	 * 
+	 * @param def
+	 *            definizione da aggiungere
+	 * @return ritorna False se è stata aggiunta, perchè vuol dire che non
+	 *         esisteva
+	 */
+	public boolean addDefinition(Definition def) {
+		lock.writeLock().lock();
+		try {
+			// si aggiunge se non esiste
+			boolean exist = this.definitionsOf(def.getHash()).add(def) == false;
+			if (exist == false) {
+				this.indexDefinition(def.getHash(), def.getText());
+				journal.definitionAdded(def);
+			}
+			return exist;
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Metodo utilizzato durante il caricamento del file dizionario per
+	 * aggiungere una definizione letta dal file. Il file non contiene
+	 * definizioni ripetute da segnalare, quindi la definizione viene inserita
+	 * direttamente nell'insieme del chunk senza registrarla nel giornale.
+	 * 
+	 * @param def
+	 *            definizione letta dal file
+	 */
+	void loadDefinition(Definition def) {
+		if (this.definitionsOf(def.getHash()).add(def)) {
+			this.indexDefinition(def.getHash(), def.getText());
+		}
+	}
+
+	/**
+	 * Aggiunge il testo di una definizione all'indice delle definizioni, se il
+	 * chunk è già indicizzato; altrimenti verrà aggiunto da
+	 * {@link #indexChunk(Chunk)}
+	 */
+	private void indexDefinition(String hash, String text) {
+		this.definitionsChanged(hash);
+		Integer id = this.idsMap.get(hash);
+		if (id != null) {
+			this.definitionIndex.add(id, text);
+		}
+	}
+
+	private void unindexDefinition(String hash, String text) {
+		this.definitionsChanged(hash);
+		Integer id = this.idsMap.get(hash);
+		if (id != null) {
+			this.definitionIndex.remove(id, text);
+		}
+	}
+
+	/**
+	 * Restituisce le definizioni di un hash, creando l'insieme se non esiste
+	 */
+	private DefinitionSet definitionsOf(String hash) {
+		DefinitionSet current = this.defsMap.get(hash);
+		if (current == null) {
+			current = new DefinitionSet();
+			this.defsMap.put(hash, current);
+			this.definitionsChanged(hash);
+		}
+		return current;
+	}
+
+	/**
+	 * Metodo che rimuove tutte le definizioni legate a un certo codice hash
+	 * 
+	 * @param hash
+	 *            codice hash che identifica le definizioni da rimuovere
+	 */
+	public void removeAllDefinitions(String hash) {
+		lock.writeLock().lock();
+		try {
+			// si rimuove l'elemento relativo all'insieme delle definizioni con
+			// questo hash
+			DefinitionSet removed = this.defsMap.remove(hash);
+			if (removed != null) {
+				this.definitionsChanged(hash);
+				for (Definition d : removed.values()) {
+					this.unindexDefinition(hash, d.getText());
+				}
+			}
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Metodo che rimuove le definizioni del paramentro defs, se presenti,
+	 * aventi hashcode uguale a quello passato come parametro. Questo metodo
+	 * rimuove solo quindi le definizioni solo le legate allo stesso chunk.
+	 * Inoltre le definizioni eliminate verranno aggiunte alla mappa
+	 * {@link #defsToDelete}, in modo tale che al refresh del dictionary, le
+	 * definizioni verranno oppurtunamente cancellate e aggiornate.
+	 * 
+	 * @param hash
+	 *            codice hash delle definizioni
+	 * @param defs_to_delete
+	 *            lista di definizioni da eliminare
+	 * @return Viene restituito un array di boolean che rappresenta quali
+	 *         definizioni sono state eliminate e quali no. Se è True vuol dire
+	 *         che (essendo presente) è stata eliminata. Se si ritorna null
+	 *         significa che l'hash non era presente, quindi le definizioni non
+	 *         ci sono e non sono nemmeno da rimuovere.
+	 */
+	public boolean[] removeDefinitions(String hash,
+			List<Definition> defs_to_delete) {
+		lock.writeLock().lock();
+		try {
+			// si ricava se le definizioni esistono
+			boolean[] exists = this.definitionsExist(hash, defs_to_delete);
+			// si controlla che sia stato trovato l'hash corrispondente
+			if (exists != null) {
+				// insieme in cui inserire i testi delle definizioni da eliminare
+				Set<String> toDelete = this.tombstonesOf(hash);
+				for (int i = 0; i < defs_to_delete.size(); i++) {
+					if (exists[i] == true) {
+						// allora si elimina dalla lista
+						if (this.defsMap.get(hash).remove(
+								defs_to_delete.get(i).getText())) {
+							this.unindexDefinition(hash, defs_to_delete.get(i)
+									.getText());
+						}
+						// si aggiunge all'insieme da eliminare
+						toDelete.add(defs_to_delete.get(i).getText());
+						journal.definitionRemoved(defs_to_delete.get(i));
+					}
+				}
+				return exists;
+			} else {
+				// se non c'è l'hash si ritorna null
+				return null;
+			}
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Vedere metodo {@link #removeDefinition(String, Definition)}, la
+	 * differenza è che questo metodo accetta una sola definizione e non una
+	 * lista.
+	 * 
+	 * @param hash
+	 *            hash della definizione da eliminare
+	 * @param def_to_delete
+	 *            definizione da eliminare
+	 * @return ritorna True se la definizione è stata eliminata
+	 */
+	public boolean removeDefinition(Definition def_to_delete) {
+		lock.writeLock().lock();
+		try {
+			// si controlla se esiste
+			boolean exist = this.definitionExist(def_to_delete);
+			// se esiste si eliminare e si aggiunge alla lista da
+			// eliminare
+			if (exist) {
+				// si rimuove
+				if (this.defsMap.get(def_to_delete.getHash()).remove(
+						def_to_delete.getText())) {
+					this.unindexDefinition(def_to_delete.getHash(),
+							def_to_delete.getText());
+				}
+				journal.definitionRemoved(def_to_delete);
+				// si aggiunge all'insieme da eliminare
+				this.tombstonesOf(def_to_delete.getHash()).add(
+						def_to_delete.getText());
+			}
+			return exist;
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Restituisce l'insieme dei testi delle definizioni da eliminare per un
+	 * hash, creandolo se non esiste
+	 */
+	private Set<String> tombstonesOf(String hash) {
+		Set<String> toDelete = this.defsToDelete.get(hash);
+		if (toDelete == null) {
+			toDelete = new HashSet<>();
+			this.defsToDelete.put(hash, toDelete);
+		}
+		return toDelete;
+	}
+
+	/**
+	 * Metodo che restituisce un chunk dato un certo hash. Se il chunk non
+	 * esiste si restituisce null.
+	 * 
+	 * @param hash
+	 * @return
+	 */
+	public Chunk getChunk(String hash) {
+		if (lock.isWriteLockedByCurrentThread()) {
+			// durante una modifica si leggono i dati non ancora pubblicati
+			return chunksMap.get(hash);
+		}
+		// la versione restituisce null se il chunk non esiste
+		return snapshot.getChunk(hash);
+	}
+
+	/**
+	 * Il metodo effettua una ricerca fra i chunks come
+	 * {@link #getChunksByWord(String)}, ma restituisce solo il chunk la cui
+	 * parola è esattamente uguale al parametro.
+	 * 
+	 * @param word
+	 *            parola del chunk da cercare
+	 * @return ritorna il chunk se trovato, se no null
+	 */
+	public Chunk getChunkBySpecificWord(String word) {
+		lock.readLock().lock();
+		try {
+			// la parola viene cercata nell'indice delle parole
+			String hash = this.wordsMap.get(word);
+			if (hash == null) {
+				return null;
+			}
+			return this.chunksMap.get(hash);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo public che effettua una ricerca tra i vari chunk e restituisce
+	 * quelli che contengono il pattern specificato. La ricerca viene effettuata
+	 * solo sulla parola che caratterizza il chunk. Il metodo viene lasciato
+	 * public perchè è di comodo utilizzo e accessibile dall'esterno senza
+	 * riferimenti ai dati interni. La ricerca non controlla l'identità
+	 * dell'eguaglianza ma solo se pattern è contenuto. I chunk candidati
+	 * vengono ricavati dall'indice degli n-grammi, e solo i pattern più corti
+	 * degli n-grammi richiedono di scorrere tutti i chunk.
+	 * 
+	 * @param pattern
+	 *            filtro da confrontare con i chunks per la ricerca. Il filtro
+	 *            può contenere anche espressioni regolari
+	 * @return ritorna una lista di chunks che corrispondono ai criteri di
+	 *         ricerca.
+	 */
+	public List<Chunk> getChunksByWord(String pattern) {
+		lock.readLock().lock();
+		try {
+			// lista in cui inserire i risultati
+			List<Chunk> results = new ArrayList<>();
+			// si ricavano dall'indice degli n-grammi i chunk candidati
+			IntList candidates = this.ngramIndex.candidates(pattern);
+			if (candidates == null) {
+				// il pattern è troppo corto per l'indice
+				for (Chunk ck : this.chunksMap.values()) {
+					if (ck.getWord().contains(pattern)) {
+						results.add(ck);
+					}
+				}
+			} else {
+				// si verificano solo i candidati
+				for (int i = 0; i < candidates.size(); i++) {
+					Chunk ck = this.chunksById.get(candidates.get(i));
+					if (ck.getWord().contains(pattern)) {
+						results.add(ck);
+					}
+				}
+			}
+			return results;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo pubblico che restituisce i chunk le cui parole iniziano con il
+	 * prefisso, in ordine alfabetico, utilizzando l'albero radix delle parole.
+	 * Vengono visitate solo le parole che iniziano con il prefisso e la visita
+	 * si ferma appena trovati limit chunk, quindi il costo non dipende dalla
+	 * dimensione del dizionario. Per ogni parola viene restituito un solo
+	 * chunk.
+	 * 
+	 * @param prefix
+	 *            prefisso delle parole da cercare
+	 * @param type
+	 *            tipo dei chunk da cercare, "" per non filtrare
+	 * @param unit
+	 *            unità dei chunk da cercare, "" per non filtrare
+	 * @param limit
+	 *            numero massimo di chunk restituiti
+	 * @return lista dei chunk trovati, in ordine alfabetico delle parole
+	 */
+	public List<Chunk> getChunksByPrefix(String prefix, String type,
+			String unit, int limit) {
+		lock.readLock().lock();
+		try {
+			List<Chunk> results = new ArrayList<>();
+			if (limit <= 0) {
+				return results;
+			}
+			BitSet filter = this.getAttributesFilter(type, unit);
+			for (int id : this.wordTrie.complete(prefix, filter, limit)) {
+				results.add(this.chunksById.get(id));
+			}
+			return results;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo pubblico che restituisce i chunk le cui parole distano al più
+	 * maxDistance dalla parola specificata secondo la distanza di Levenshtein
+	 * (numero di caratteri inseriti, eliminati o sostituiti), per trovare le
+	 * parole anche se scritte in modo errato. La ricerca visita l'albero radix
+	 * delle parole scartando i rami troppo distanti, quindi con distanza 1 o 2
+	 * non scorre tutti i chunk. Per ogni parola viene restituito un solo
+	 * chunk.
+	 * 
+	 * @param word
+	 *            parola da cercare
+	 * @param maxDistance
+	 *            distanza massima tra le parole
+	 * @param type
+	 *            tipo dei chunk da cercare, "" per non filtrare
+	 * @param unit
+	 *            unità dei chunk da cercare, "" per non filtrare
+	 * @return lista dei chunk trovati, ordinati per distanza e poi in ordine
+	 *         alfabetico
+	 */
+	public List<Chunk> getChunksByDistance(String word, int maxDistance,
+			String type, String unit) {
+		lock.readLock().lock();
+		try {
+			List<Chunk> results = new ArrayList<>();
+			BitSet filter = this.getAttributesFilter(type, unit);
+			for (int id : this.wordTrie.fuzzy(word, maxDistance, filter)) {
+				results.add(this.chunksById.get(id));
+			}
+			return results;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo pubblico che ricerca i chunk le cui definizioni contengono i
+	 * termini specificati, utilizzando l'indice invertito delle definizioni.
+	 * I termini sono le sequenze di lettere e cifre del testo cercato e
+	 * vengono confrontati senza distinguere maiuscole e minuscole.
+	 * 
+	 * @param terms
+	 *            testo contenente i termini da cercare
+	 * @param mode
+	 *            {@link #ALL_TERMS} per cercare i chunk che contengono tutti i
+	 *            termini, {@link #ANY_TERM} per quelli che ne contengono almeno
+	 *            uno
+	 * @return lista dei chunk trovati, vuota se nessun chunk corrisponde
+	 */
+	public List<Chunk> getChunksByDefinition(String terms, int mode) {
+		lock.readLock().lock();
+		try {
+			return this.getChunksById(this.definitionIndex.search(terms,
+					mode == ALL_TERMS));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo pubblico che restituisce i limit chunk le cui definizioni sono
+	 * più rilevanti per i termini specificati, con il punteggio BM25: contano
+	 * di più i termini rari, quelli ripetuti e le definizioni brevi. Solo i
+	 * migliori limit chunk vengono conservati e i chunk che non possono
+	 * entrare tra questi vengono saltati senza calcolarne il punteggio.
+	 * 
+	 * @param terms
+	 *            testo contenente i termini da cercare
+	 * @param limit
+	 *            numero massimo di risultati
+	 * @return lista dei risultati, ordinati per punteggio decrescente
+	 */
+	public List<DefinitionMatch> getChunksByRelevance(String terms, int limit) {
+		lock.readLock().lock();
+		try {
+			DefinitionIndex.TopK top = this.definitionIndex.rank(terms, limit);
+			List<DefinitionMatch> results = new ArrayList<>(top.size);
+			for (int i = 0; i < top.size; i++) {
+				results.add(new DefinitionMatch(this.chunksById.get(top.ids[i]),
+						top.scores[i]));
+			}
+			return results;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo pubblico che trova in un testo tutte le parole dei chunk del
+	 * dizionario, leggendolo una sola volta con un automa di Aho-Corasick
+	 * costruito con le parole di tutti i chunk. L'automa viene costruito alla
+	 * prima chiamata e non viene ricostruito a ogni modifica: i chunk
+	 * eliminati vengono ignorati, mentre quelli aggiunti vengono cercati con
+	 * un secondo automa più piccolo, finchè non diventano troppi e si
+	 * ricostruisce quello principale. Il testo viene letto senza tenere il
+	 * lock, con gli automi presenti all'inizio della chiamata, e il lock in
+	 * lettura viene ripreso solo per ricavare i chunk trovati: i chunk
+	 * eliminati nel frattempo vengono ignorati.
+	 * 
+	 * @param text
+	 *            testo in cui cercare le parole
+	 * @param wholeWords
+	 *            True per trovare solo le parole non precedute né seguite da
+	 *            lettere o cifre, False per trovarle anche all'interno di
+	 *            altre parole
+	 * @return lista delle parole trovate, in ordine di posizione finale
+	 * @throws IOException
+	 *             se la lettura del testo non riesce
+	 */
+	public List<Annotation> annotate(Reader text, boolean wholeWords)
+			throws IOException {
+		ChunkAutomaton main;
+		ChunkAutomaton delta;
+		int scanGeneration;
+		lock.readLock().lock();
+		try {
+			if (this.automataOutdated()) {
+				// gli automi vengono ricostruiti con il lock in scrittura, che
+				// non può essere ottenuto mentre si tiene quello in lettura
+				lock.readLock().unlock();
+				lock.writeLock().lock();
+				try {
+					// un altro thread potrebbe averli già ricostruiti
+					if (this.automataOutdated()) {
+						this.updateAutomata();
+					}
+				} finally {
+					lock.readLock().lock();
+					this.unlockWrite();
+				}
+			}
+			// gli automi non cambiano dopo la costruzione: si leggono senza
+			// lock, così il testo fornito dal chiamante non blocca i salvataggi
+			main = this.automaton;
+			delta = this.deltaAutomaton;
+			scanGeneration = this.generation;
+		} finally {
+			lock.readLock().unlock();
+		}
+		ChunkAutomaton.Matches matches = ChunkAutomaton.scan(text, wholeWords,
+				main, delta);
+		List<Annotation> results = new ArrayList<>(matches.size());
+		lock.readLock().lock();
+		try {
+			// se nel frattempo gli id sono stati riassegnati i chunk si
+			// ritrovano con l'hash
+			boolean sameIds = scanGeneration == this.generation;
+			for (int i = 0; i < matches.size(); i++) {
+				Chunk chunk = sameIds ? this.chunksById.get(matches.id(i))
+						: this.chunksMap.get(matches.hash(i));
+				// i chunk eliminati dopo la costruzione hanno l'id vuoto
+				if (chunk != null) {
+					results.add(new Annotation(matches.offset(i), chunk));
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return results;
+	}
+
+	/**
+	 * Metodo privato che indica se gli automi di {@link #annotate(Reader, boolean)}
+	 * non comprendono tutti i chunk del dizionario
+	 */
+	private boolean automataOutdated() {
+		int size = this.chunksById.size();
+		return this.automaton == null
+				|| (this.deltaAutomaton == null ? this.automaton.coveredIds
+						: this.deltaAutomaton.coveredIds) != size;
+	}
+
+	/**
+	 * Metodo privato che ricostruisce gli automi di
+	 * {@link #annotate(Reader, boolean)}: quello principale solo se mancano
+	 * troppi chunk, altrimenti solo quello dei chunk aggiunti
+	 */
+	private void updateAutomata() {
+		int size = this.chunksById.size();
+		if (this.automaton == null
+				|| size - this.automaton.coveredIds > Math.max(MIN_DELTA_IDS,
+						this.automaton.coveredIds / 8)) {
+			this.automaton = ChunkAutomaton.build(this.chunksById, 0, size);
+			this.deltaAutomaton = null;
+		}
+		if (this.automaton.coveredIds == size) {
+			this.deltaAutomaton = null;
+		} else if (this.deltaAutomaton == null
+				|| this.deltaAutomaton.coveredIds != size) {
+			// si ricostruisce solo l'automa dei chunk aggiunti
+			this.deltaAutomaton = ChunkAutomaton.build(this.chunksById,
+					this.automaton.coveredIds, size);
+		}
+	}
+
+	/**
+	 * Metodo privato che restituisce la bitmap degli id dei chunk che
+	 * corrispondono ai filtri su tipo e unità, calcolata con gli indici bitmap
+	 * senza leggere gli oggetti Chunk. Il tipo non deve corrispondere
+	 * perfettamente, cosi si può scrivere più di un tipo, mentre l'unità deve
+	 * corrispondere perfettamente.
+	 * 
+	 * @param type
+	 *            tipo dei chunk da cercare, "" per non filtrare
+	 * @param unit
+	 *            unità dei chunk da cercare, "" per non filtrare
+	 * @return bitmap degli id, null se non c'è nessun filtro
+	 */
+	private BitSet getAttributesFilter(String type, String unit) {
+		BitSet filter = null;
+		if (type.equals("") == false) {
+			filter = this.typesIndex.containing(type);
+		}
+		if (unit.equals("") == false) {
+			if (filter == null) {
+				filter = this.unitsIndex.equalTo(unit);
+			} else {
+				filter.and(this.unitsIndex.equalTo(unit));
+			}
+		}
+		return filter;
+	}
+
+	/**
+	 * Metodo pubblico che ricerca tra i chunks specificando tre
+	 * parametri:pattern,type e unit. Il tipo non deve corrispondere
+	 * perfettamente, mentre l'unità sì. La ricerca segue il piano scelto da
+	 * {@link QueryPlan} in base alle statistiche degli indici: se il pattern è
+	 * più selettivo dei filtri su tipo e unità si verificano i filtri sui soli
+	 * candidati degli n-grammi, altrimenti si calcola l'AND delle bitmap e si
+	 * verifica il pattern sui chunk rimasti. Per ogni piano i chunk sono in
+	 * ordine di id, cioè di inserimento finché gli indici non vengono
+	 * ricostruiti, come nelle pagine restituite da
+	 * {@link #getChunksWithArguments(String, String, String, String, int)}.
+	 * 
+	 * @param pattern
+	 *            si riferisce alla parola del chunk da cercare
+	 * @param type
+	 *            tipo del chunk da cercare
+	 * @param unit
+	 *            unità del chunk da cercare
+	 * @return ritorna una lista di chunk che corrispondono ai criteri di
+	 *         ricerca.
+	 */
+	public List<Chunk> getChunksWithArguments(String pattern, String type,
+			String unit) {
+		lock.readLock().lock();
+		try {
+			// la lista segue lo stesso cursore delle pagine, quindi i chunk
+			// sono nello stesso ordine
+			QueryCursor cursor = new QueryCursor(this.planQuery(pattern, type,
+					unit), 0);
+			List<Chunk> results = new ArrayList<>();
+			int id;
+			while ((id = cursor.next()) >= 0) {
+				results.add(this.chunksById.get(id));
+			}
+			return results;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo pubblico che restituisce una pagina dei risultati della ricerca
+	 * {@link #getChunksWithArguments(String, String, String)}, saltando i
+	 * primi offset chunk trovati. I chunk vengono cercati solo fino a
+	 * riempire la pagina, senza creare la lista di tutti i risultati; i chunk
+	 * saltati vengono comunque verificati, quindi per scorrere i risultati
+	 * conviene utilizzare il token della pagina con
+	 * {@link #getChunksWithArguments(String, String, String, String, int)}.
+	 * I risultati sono nello stesso ordine della lista, l'ordine di id, e,
+	 * con pattern, type e unit vuoti, sono tutti i chunk del dizionario.
+	 * 
+	 * @param pattern
+	 *            si riferisce alla parola del chunk da cercare
+	 * @param type
+	 *            tipo del chunk da cercare
+	 * @param unit
+	 *            unità del chunk da cercare
+	 * @param offset
+	 *            numero di chunk trovati da saltare
+	 * @param limit
+	 *            numero massimo di chunk della pagina
+	 * @return la pagina dei risultati
+	 */
+	public ResultPage<Chunk> getChunksWithArguments(String pattern,
+			String type, String unit, int offset, int limit) {
+		lock.readLock().lock();
+		try {
+			QueryCursor cursor = new QueryCursor(this.planQuery(pattern, type,
+					unit), 0);
+			for (int i = 0; i < offset && cursor.next() >= 0; i++) {
+				// si saltano i primi chunk
+			}
+			return this.nextPage(cursor, limit);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo pubblico che restituisce la pagina dei risultati della ricerca
+	 * {@link #getChunksWithArguments(String, String, String)} che inizia dal
+	 * token restituito dalla pagina precedente. La ricerca riprende
+	 * direttamente dal punto indicato dal token; i chunk aggiunti nel
+	 * frattempo compaiono nelle pagine successive e quelli eliminati non
+	 * vengono restituiti.
+	 * 
+	 * @param pattern
+	 *            si riferisce alla parola del chunk da cercare
+	 * @param type
+	 *            tipo del chunk da cercare
+	 * @param unit
+	 *            unità del chunk da cercare
+	 * @param token
+	 *            token della pagina precedente, null per la prima pagina
+	 * @param limit
+	 *            numero massimo di chunk della pagina
+	 * @return la pagina dei risultati
+	 * @throws IllegalArgumentException
+	 *             se il token non è valido o gli indici sono stati ricostruiti
+	 *             dopo la sua creazione
+	 */
+	public ResultPage<Chunk> getChunksWithArguments(String pattern,
+			String type, String unit, String token, int limit) {
+		lock.readLock().lock();
+		try {
+			int from = token == null ? 0 : this.parseToken(token);
+			return this.nextPage(new QueryCursor(this.planQuery(pattern, type,
+					unit), from), limit);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo pubblico che conta i chunk che soddisfano la ricerca
+	 * {@link #getChunksWithArguments(String, String, String)} senza creare la
+	 * lista dei risultati. Senza filtri, o con i soli filtri su tipo e unità,
+	 * il conteggio non legge nessun chunk.
+	 * 
+	 * @param pattern
+	 *            si riferisce alla parola del chunk da cercare
+	 * @param type
+	 *            tipo del chunk da cercare
+	 * @param unit
+	 *            unità del chunk da cercare
+	 * @return il numero di chunk trovati
+	 */
+	public int countChunksWithArguments(String pattern, String type,
+			String unit) {
+		lock.readLock().lock();
+		try {
+			QueryPlan plan = this.planQuery(pattern, type, unit);
+			if (plan.strategy == QueryPlan.ALL) {
+				return this.chunksMap.size();
+			}
+			if (plan.strategy == QueryPlan.ATTRIBUTES_FIRST && pattern.equals("")) {
+				return this.getAttributesFilter(type, unit).cardinality();
+			}
+			QueryCursor cursor = new QueryCursor(plan, 0);
+			int count = 0;
+			while (cursor.next() >= 0) {
+				count++;
+			}
+			return count;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Riempie una pagina con i chunk del cursore e cerca il primo chunk della
+	 * pagina successiva, il cui id viene inserito nel token
+	 */
+	private ResultPage<Chunk> nextPage(QueryCursor cursor, int limit) {
+		List<Chunk> items = new ArrayList<>();
+		int id;
+		while (items.size() < limit && (id = cursor.next()) >= 0) {
+			items.add(this.chunksById.get(id));
+		}
+		int next = cursor.next();
+		return new ResultPage<>(items, next < 0 ? null : this.generation + ":"
+				+ next);
+	}
+
+	/**
+	 * Restituisce l'id contenuto in un token di una pagina
+	 */
+	private int parseToken(String token) {
+		int separator = token.indexOf(':');
+		int tokenGeneration = -1;
+		int id = -1;
+		if (separator > 0) {
+			try {
+				tokenGeneration = Integer.parseInt(token.substring(0, separator));
+				id = Integer.parseInt(token.substring(separator + 1));
+			} catch (NumberFormatException e) {
+				id = -1;
+			}
+		}
+		if (id < 0) {
+			throw new IllegalArgumentException("invalid page token: " + token);
+		}
+		if (tokenGeneration != this.generation) {
+			throw new IllegalArgumentException("expired page token: " + token);
+		}
+		return id;
+	}
+
+	/**
+	 * Cursore che scorre in ordine di id i chunk che soddisfano una ricerca,
+	 * seguendo lo stesso piano di
+	 * {@link DictionaryData#getChunksWithArguments(String, String, String)}
+	 * ma senza creare la lista dei risultati
+	 */
+	private final class QueryCursor {
+
+		private final QueryPlan plan;
+		/**
+		 * Candidati degli n-grammi per {@link QueryPlan#WORD_FIRST}
+		 */
+		private final IntList candidates;
+		/**
+		 * Bitmap di tipo e unità per {@link QueryPlan#ATTRIBUTES_FIRST}
+		 */
+		private final BitSet filter;
+		/**
+		 * Posizione in candidates per {@link QueryPlan#WORD_FIRST}, id del
+		 * prossimo chunk da verificare altrimenti
+		 */
+		private int position;
+
+		QueryCursor(QueryPlan _plan, int from) {
+			plan = _plan;
+			if (plan.strategy == QueryPlan.WORD_FIRST) {
+				candidates = ngramIndex.candidates(plan.pattern);
+				filter = null;
+				position = candidates.ceilingIndex(from);
+			} else if (plan.strategy == QueryPlan.ATTRIBUTES_FIRST) {
+				candidates = null;
+				filter = getAttributesFilter(plan.type, plan.unit);
+				position = from;
+			} else {
+				candidates = null;
+				filter = null;
+				position = from;
+			}
+		}
+
+		/**
+		 * Restituisce l'id del prossimo chunk trovato, -1 se non ce ne sono
+		 * altri
+		 */
+		int next() {
+			switch (plan.strategy) {
+			case QueryPlan.WORD_FIRST:
+				while (position < candidates.size()) {
+					int id = candidates.get(position++);
+					Chunk ck = chunksById.get(id);
+					if (ck.getWord().contains(plan.pattern)
+							&& matchesAttributes(ck, plan.type, plan.unit)) {
+						return id;
+					}
+				}
+				return -1;
+			case QueryPlan.ATTRIBUTES_FIRST:
+				for (int id = filter.nextSetBit(position); id >= 0; id = filter
+						.nextSetBit(id + 1)) {
+					if (chunksById.get(id).getWord().contains(plan.pattern)) {
+						position = id + 1;
+						return id;
+					}
+				}
+				position = chunksById.size();
+				return -1;
+			default:
+				// tutti i chunk, verificando il pattern se presente
+				while (position < chunksById.size()) {
+					int id = position++;
+					Chunk ck = chunksById.get(id);
+					if (ck != null && ck.getWord().contains(plan.pattern)) {
+						return id;
+					}
+				}
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Metodo che restituisce la descrizione del piano che
+	 * {@link #getChunksWithArguments(String, String, String)} seguirebbe per
+	 * la ricerca specificata, con il numero stimato di chunk per ogni filtro.
+	 * 
+	 * @param pattern
+	 *            si riferisce alla parola del chunk da cercare
+	 * @param type
+	 *            tipo del chunk da cercare
+	 * @param unit
+	 *            unità del chunk da cercare
+	 * @return descrizione del piano di ricerca
+	 */
+	public String explainQuery(String pattern, String type, String unit) {
+		lock.readLock().lock();
+		try {
+			return this.planQuery(pattern, type, unit).toString();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private QueryPlan planQuery(String pattern, String type, String unit) {
+		return QueryPlan.create(pattern, type, unit, this.chunksMap.size(),
+				this.ngramIndex, this.typesIndex, this.unitsIndex);
+	}
+
+	/**
+	 * Verifica i filtri su tipo e unità direttamente sul chunk, con le stesse
+	 * regole degli indici bitmap
+	 */
+	private static boolean matchesAttributes(Chunk ck, String type, String unit) {
+		if (type.equals("") == false
+				&& (ck.getType() == null || ck.getType().contains(type) == false)) {
+			return false;
+		}
+		return unit.equals("") || unit.equals(ck.getUnit());
+	}
+
+	/**
+	 * Metodo privato che restituisce i chunk degli id presenti nella bitmap
+	 */
+	private List<Chunk> getChunksById(BitSet ids) {
+		List<Chunk> results = new ArrayList<>(ids.cardinality());
+		for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+			results.add(this.chunksById.get(id));
+		}
+		return results;
+	}
+
+	/**
+	 * Metodo che verifica gli hash di tutti i chunk del dizionario. Gli hash
+	 * delle parole vengono ricalcolati in parallelo, dividendo i chunk tra
+	 * più thread, e poi raggruppati per trovare:
+	 * <ul>
+	 * <li>parole diverse con lo stesso hash ({@link HashConflict#COLLISION})</li>
+	 * <li>parole memorizzate in più chunk ({@link HashConflict#DUPLICATE})</li>
+	 * <li>chunk con un hash che non corrisponde alla parola
+	 * ({@link HashConflict#MISMATCH})</li>
+	 * </ul>
+	 * I dati non vengono modificati.
+	 * 
+	 * @return lista dei problemi trovati, vuota se non ce ne sono
+	 * @throws InterruptedException
+	 *             se il thread viene interrotto durante la verifica
+	 */
+	public List<HashConflict> verifyHashes() throws InterruptedException {
+		lock.readLock().lock();
+		try {
+			final Chunk[] all = this.chunksMap.values().toArray(
+					new Chunk[this.chunksMap.size()]);
+			// hash normale della parola di ogni chunk, -1 se la parola è null
+			final long[] hashes = new long[all.length];
+			int threads = Math.max(1, Math.min(Runtime.getRuntime()
+					.availableProcessors(), all.length / MIN_VERIFY_BATCH));
+			int step = (all.length + threads - 1) / threads;
+			List<HashConflict> conflicts = new ArrayList<>();
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<List<HashConflict>>> tasks = new ArrayList<>();
+				for (int from = 0; from < all.length; from += step) {
+					final int start = from;
+					final int end = Math.min(all.length, from + step);
+					tasks.add(executor.submit(new Callable<List<HashConflict>>() {
+						@Override
+						public List<HashConflict> call() {
+							return verifyHashes(all, hashes, start, end);
+						}
+					}));
+				}
+				for (Future<List<HashConflict>> task : tasks) {
+					conflicts.addAll(task.get());
+				}
+			} catch (ExecutionException e) {
+				// i task non lanciano eccezioni controllate
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new IllegalStateException(e.getCause());
+			} finally {
+				executor.shutdownNow();
+			}
+			// si raggruppano i chunk per hash: i gruppi con più chunk sono rari e
+			// vengono memorizzati a parte
+			LongHashMap<Chunk> first = new LongHashMap<>();
+			Map<Long, List<Chunk>> groups = new HashMap<>();
+			for (int i = 0; i < all.length; i++) {
+				if (hashes[i] < 0) {
+					continue;
+				}
+				Chunk other = first.put(hashes[i], all[i]);
+				if (other != null) {
+					first.put(hashes[i], other);
+					List<Chunk> group = groups.get(hashes[i]);
+					if (group == null) {
+						group = new ArrayList<>();
+						group.add(other);
+						groups.put(hashes[i], group);
+					}
+					group.add(all[i]);
+				}
+			}
+			for (Map.Entry<Long, List<Chunk>> entry : groups.entrySet()) {
+				String hash = MD5.toHash(entry.getKey());
+				Set<String> words = new HashSet<>();
+				Set<String> duplicates = new HashSet<>();
+				for (Chunk c : entry.getValue()) {
+					if (words.add(c.getWord()) == false) {
+						duplicates.add(c.getWord());
+					}
+				}
+				if (words.size() > 1) {
+					conflicts.add(new HashConflict(HashConflict.COLLISION, hash,
+							new ArrayList<>(words)));
+				}
+				for (String word : duplicates) {
+					List<String> repeated = new ArrayList<>();
+					for (Chunk c : entry.getValue()) {
+						if (word.equals(c.getWord())) {
+							repeated.add(word);
+						}
+					}
+					conflicts.add(new HashConflict(HashConflict.DUPLICATE, hash,
+							repeated));
+				}
+			}
+			return conflicts;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Calcola l'hash normale delle parole dei chunk da start a end,
+	 * memorizzandolo in hashes, e restituisce i chunk il cui hash non
+	 * corrisponde alla parola
+	 */
+	private static List<HashConflict> verifyHashes(Chunk[] chunks,
+			long[] hashes, int start, int end) {
+		List<HashConflict> conflicts = new ArrayList<>();
+		for (int i = start; i < end; i++) {
+			String word = chunks[i].getWord();
+			if (word == null) {
+				hashes[i] = -1;
+				continue;
+			}
+			String hash = MD5.GetHash(word);
+			hashes[i] = MD5.toLong(hash);
+			if (hash.equals(chunks[i].getHash()) == false
+					&& isAlternativeHash(word, chunks[i].getHash()) == false) {
+				conflicts.add(new HashConflict(HashConflict.MISMATCH, chunks[i]
+						.getHash(), Collections.singletonList(word)));
+			}
+		}
+		return conflicts;
+	}
+
+	private static boolean isAlternativeHash(String word, String hash) {
+		for (int salt = 1; salt <= MD5.MAX_SALT; salt++) {
+			if (MD5.GetHash(word, salt).equals(hash)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Metodo che restituisce tutti i chunk della lista.
+	 * 
+	 * @return Restituisce tutti i chunks della lista
+	 */
+	public List<Chunk> getAllChunks() {
+		if (lock.isWriteLockedByCurrentThread()) {
+			return new ArrayList<>(this.chunksMap.values());
+		}
+		// si restituisce tutta la lista di chunk
+		return snapshot.getAllChunks();
+	}
+
+	/**
+	 * Metodo che controlla l'esistenza di un chunk
+	 * 
+	 * @param chunk
+	 *            chunk di cui controllare l'esistenza
+	 * @return
+	 */
+	public boolean chunkExist(Chunk chunk) {
+		return chunkExist(chunk.getHash());
+	}
+
+	/**
+	 * Metodo che controlla l'esistenza di un chunk
+	 * 
+	 * @param hash
+	 *            codice hash per il confronto
+	 * @return restituisce True se il chunk è in lista
+	 */
+	public boolean chunkExist(String hash) {
+		if (lock.isWriteLockedByCurrentThread()) {
+			return chunksMap.containsKey(hash);
+		}
+		return snapshot.chunkExist(hash);
+	}
+
+	/**
+	 * Metodo che restituisce un array di Definition che hanno un certo codice
+	 * hash. Differente da {@link #getDefinition(String)} poichè questo metodo
+	 * accetta un argomento di tipo Chunk. Almeno una definizione è sempre
+	 * presente.
+	 * 
+	 * @param chunk
+	 *            Chunk per la ricerca.
+	 * @return
+	 */
+	public List<Definition> getDefinitions(Chunk chunk) {
+		return getDefinitions(chunk.getHash());
+	}
+
+	/**
+	 * Metodo che restituisce un array di Definition che hanno un certo codice
+	 * hash. Almeno una definizione è sempre presente.
+	 * 
+	 * @param hash
+	 *            codice hash per il confronto
+	 * @return
+	 */
+	public List<Definition> getDefinitions(String hash) {
+		if (lock.isWriteLockedByCurrentThread()) {
+			// si ricavano le definizioni dal map di definizioni
+			DefinitionSet current = this.defsMap.get(hash);
+			if (current == null) {
+				return null;
+			}
+			return new ArrayList<>(current.values());
+		}
+		return snapshot.getDefinitions(hash);
+	}
+
+	/**
+	 * Metodo che controlla l'esistenza delle definizioni di un chunk. E'
+	 * fondamentale che le definizioni appertengano tutte a un solo chunk,
+	 * quello con l'hash passata come argomento.
+	 * 
+	 * @param defs
+	 *            lista di definizioni da controllare
+	 * @param hash
+	 *            hash delle definizioni da cercare
+	 * @return restituisce un array di boolean che indica o meno l'esistenza di
+	 *         ognuna delle definizioni nella lista. Ritorna True se la
+	 *         definizione è già presente.Ritorna null se non ci sono
+	 *         definizioni per questo hash
+	 */
+	public boolean[] definitionsExist(String hash, List<Definition> defs) {
+		lock.readLock().lock();
+		try {
+			// si controlla se la lista di definizioni esiste
+			// devono essere tutte dello stesso chunk
+			// si ricava la lista dei definizioni esistenti
+			// si controlla che ci sia l'elemnto con questo hash
+			DefinitionSet founded = this.defsMap.get(hash);
+			if (founded == null) {
+				return null;
+			}
+			boolean[] listB = new boolean[defs.size()];
+			int index = 0;
+			for (Definition d1 : defs) {
+				listB[index] = founded.contains(d1.getText());
+				index += 1;
+			}
+			return listB;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Per documentazione vedere {@link #definitionsExist(String, List)}, la
+	 * differenza è che questo metodo accetta solo una definizione.
+	 * 
+	 * @param hash
+	 *            hash della definizione da cercare
+	 * @return ritorna True se la definizione è stata trovata.
+	 */
+	public boolean definitionExist(Definition def) {
+		lock.readLock().lock();
+		try {
+			// si ricava la lista dei definizioni esistenti
+			DefinitionSet current = this.defsMap.get(def.getHash());
+			return current != null && current.contains(def.getText());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo che controlla se il chunk rappresentato dall'hash passato come
+	 * parametro deve essere eliminato al refresh o no.
+	 * 
+	 * @param hash
+	 *            codice hash che identifica il chunk
+	 * @return restituisce True se il chunk deve essere eliminato
+	 */
+	public boolean getChunkMustBeRemoved(String hash) {
+		lock.readLock().lock();
+		try {
+			return this.chunksToDelete.contains(hash);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo che controlla se il chunk passato come parametro deve essere
+	 * eliminato al refresh o no.
+	 * 
+	 * @param chunk
+	 *            chunk da controllare
+	 * @return restituisce True se il chunk deve essere eliminato
+	 */
+	public boolean getChunkMustBeRemoved(Chunk chunk) {
+		lock.readLock().lock();
+		try {
+			return this.getChunkMustBeRemoved(chunk.getHash());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo che controlla se le definizioni passate come parametro e facenti
+	 * riferimento a un certo hash, siano da eliminare o no. Restituisce True se
+	 * la definione è da eliminare, null se non ci sono definizioni con questo
+	 * hash.
+	 * 
+	 * @param hash
+	 *            codice hash che identifica le definizioni
+	 * @param defs
+	 *            array di definitioni da controllare
+	 * @return restituisce un array di boolean che indica quali definizioni
+	 *         siano da eliminare. Restituisce True se la definione è da
+	 *         eliminare. Restituisce null se non ci sono definizioni con questa
+	 *         hash.
+	 */
+	public boolean[] getDefinitionsMustBeRemoved(String hash,
+			List<Definition> defs) {
+		lock.readLock().lock();
+		try {
+			// si ricavano le definizioni da eliminare memorizzate per lo specifico
+			// hash.
+			// se l'hash non è presente si esce
+			if (this.defsToDelete.containsKey(hash) == false) {
+				return null;
+			}
+			Set<String> toDelete = this.defsToDelete.get(hash);
+			boolean[] to_del = new boolean[defs.size()];
+			int index = 0;
+			for (Definition d1 : defs) {
+				to_del[index] = toDelete.contains(d1.getText());
+				index += 1;
+			}
+			// si restituisce il risultato
+			return to_del;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Proprietà che indica se il dizionario è stato caricato
+	 * 
+	 * @return True se il dizionario è stato caricato correttamente in memoria.
+	 */
+	public boolean isDictionaryLoaded() {
+		lock.readLock().lock();
+		try {
+			return this.dictionaryLoaded;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo che restituisce la politica di sincronizzazione su disco
+	 * 
+	 * @return {@link #SYNC_ALWAYS}, {@link #SYNC_ON_CLOSE} o
+	 *         {@link #SYNC_NEVER}
+	 */
+	public int getSyncPolicy() {
+		lock.readLock().lock();
+		try {
+			return this.syncPolicy;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo che imposta quando i file scritti da
+	 * {@link #writeData(Path, boolean)} e {@link #saveData(boolean)} vengono
+	 * forzati su disco, scegliendo tra sicurezza dei dati e velocità di
+	 * salvataggio.
+	 * 
+	 * @param policy
+	 *            {@link #SYNC_ALWAYS}, {@link #SYNC_ON_CLOSE} o
+	 *            {@link #SYNC_NEVER}
+	 * @return ritorna False se la politica non è valida
+	 */
+	public boolean setSyncPolicy(int policy) {
+		lock.writeLock().lock();
+		try {
+			if (policy == SYNC_ALWAYS || policy == SYNC_ON_CLOSE
+					|| policy == SYNC_NEVER) {
+				this.syncPolicy = policy;
+				return true;
+			} else {
+				return false;
+			}
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Metodo che restituisce il formato del file dizionario
+	 * 
+	 * @return {@link #XML_FORMAT} o {@link #BINARY_FORMAT}
+	 */
+	public int getFormat() {
+		lock.readLock().lock();
+		try {
+			return this.format;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo che imposta il formato con cui il dizionario verrà scritto da
+	 * {@link #writeData(Path, boolean)}.
+	 * 
+	 * @param _format
+	 *            {@link #XML_FORMAT} o {@link #BINARY_FORMAT}
+	 * @return ritorna False se il formato non è valido
+	 */
+	public boolean setFormat(int _format) {
+		lock.writeLock().lock();
+		try {
+			if (_format == XML_FORMAT || _format == BINARY_FORMAT) {
+				if (_format != this.format) {
+					this.formatChanged = true;
+				}
+				this.format = _format;
+				return true;
+			} else {
+				return false;
+			}
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Metodo che svuota la memoria e cancella tutti i chunk e le definizioni
+	 * memorizzate. Il salvataggio successivo riscrive per intero il file
+	 * dizionario.
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			chunksMap.clear();
+			wordsMap.clear();
+			chunksById.clear();
+			idsMap.clear();
+			ngramIndex.clear();
+			wordTrie.clear();
+			typesIndex.clear();
+			unitsIndex.clear();
+			removedIds = 0;
+			generation += 1;
+			defsMap.clear();
+			definitionIndex.clear();
+			automaton = null;
+			deltaAutomaton = null;
+			defsToDelete.clear();
+			chunksToDelete.clear();
+			changedChunks.clear();
+			changedDefinitions.clear();
+			mergedRecords.clear();
+			rebuildSnapshot = true;
+			// le rimozioni non vengono registrate nel giornale: si scartano i
+			// record e il file dizionario verrà riscritto per intero
+			journal.discard();
+			if (journal.isRecording()) {
+				unjournaled += 1;
+			}
+		} finally {
+			this.unlockWrite();
+		}
+	}
+
+	/**
+	 * Metodo che restituisce l'ultima versione immutabile dei chunk e delle
+	 * definizioni, senza attendere le modifiche in corso. La versione può
+	 * essere letta da qualsiasi thread, anche mentre il dizionario viene
+	 * modificato, e non cambia.
+	 * 
+	 * @return la versione corrente dei dati
+	 */
+	public DictionarySnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Metodo privato che rilascia il lock in scrittura. Al termine della
+	 * modifica più esterna le modifiche vengono pubblicate in una nuova
+	 * versione, vedere {@link #getSnapshot()}.
+	 */
+	private void unlockWrite() {
+		try {
+			if (lock.getWriteHoldCount() == 1) {
+				this.publish();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Metodo privato che crea una nuova versione dei dati partendo da quella
+	 * corrente e aggiornando solo i chunk e le definizioni modificati. Le
+	 * parti non modificate sono condivise con la versione precedente.
+	 */
+	private void publish() {
+		if (indexed == false) {
+			// i dati letti per il refresh non vengono pubblicati
+			return;
+		}
+		if (rebuildSnapshot) {
+			this.rebuild();
+			return;
+		}
+		if (changedChunks.isEmpty() && changedDefinitions.isEmpty()
+				&& snapshot.format == format) {
+			return;
+		}
+		PersistentHashMap.Editor<Chunk> chunks = snapshot.chunksMap().edit();
+		for (String hash : changedChunks) {
+			Chunk chunk = chunksMap.get(hash);
+			if (chunk == null) {
+				chunks.remove(hash);
+			} else {
+				chunks.put(hash, chunk);
+			}
+		}
+		PersistentHashMap.Editor<Definition[]> defs = snapshot
+				.definitionsMap().edit();
+		for (String hash : changedDefinitions) {
+			DefinitionSet current = defsMap.get(hash);
+			if (current == null) {
+				defs.remove(hash);
+			} else {
+				defs.put(hash, toArray(current));
+			}
+		}
+		changedChunks.clear();
+		changedDefinitions.clear();
+		snapshot = new DictionarySnapshot(chunks.persistent(),
+				defs.persistent(), format);
+	}
+
+	/**
+	 * Metodo privato che costruisce la versione dei dati da tutti i chunk e
+	 * le definizioni, più veloce di registrare ogni modifica durante il
+	 * caricamento
+	 */
+	private void rebuild() {
+		PersistentHashMap.Editor<Chunk> chunks = PersistentHashMap
+				.<Chunk> empty().edit();
+		for (Chunk chunk : chunksMap.values()) {
+			chunks.put(chunk.getHash(), chunk);
+		}
+		PersistentHashMap.Editor<Definition[]> defs = PersistentHashMap
+				.<Definition[]> empty().edit();
+		// come in publish() anche gli insiemi vuoti vengono inseriti, così
+		// getDefinitions restituisce una lista vuota in entrambi i casi
+		for (String hash : defsMap.keys()) {
+			defs.put(hash, toArray(defsMap.get(hash)));
+		}
+		rebuildSnapshot = false;
+		snapshot = new DictionarySnapshot(chunks.persistent(),
+				defs.persistent(), format);
+	}
+
+	private void chunkChanged(String hash) {
+		if (rebuildSnapshot == false) {
+			changedChunks.add(hash);
+		}
+		this.recordChanged(hash);
+	}
+
+	private void definitionsChanged(String hash) {
+		if (rebuildSnapshot == false) {
+			changedDefinitions.add(hash);
+		}
+		this.recordChanged(hash);
+	}
+
+	/**
+	 * Il chunk è stato modificato in memoria, quindi va confrontato al
+	 * prossimo refresh anche se il suo record nel file non cambia
+	 */
+	private void recordChanged(String hash) {
+		if (mergedRecords.isEmpty() == false) {
+			mergedRecords.remove(hash);
+		}
+	}
+
+	private static Definition[] toArray(DefinitionSet defs) {
+		Collection<Definition> values = defs.values();
+		return values.toArray(new Definition[values.size()]);
+	}
+
+}
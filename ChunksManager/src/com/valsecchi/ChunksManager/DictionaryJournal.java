@@ -0,0 +1,439 @@
+package com.valsecchi.ChunksManager;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * La classe DictionaryJournal gestisce il giornale delle modifiche di un
+ * dizionario. Ogni modifica fatta su DictionaryData (aggiunta e rimozione di
+ * chunk e definizioni) viene registrata come record in memoria e al
+ * salvataggio i record vengono aggiunti in coda al file giornale, senza
+ * riscrivere il file dizionario. Al caricamento del dizionario il giornale
+ * viene riapplicato sopra il file base. Quando il giornale diventa troppo
+ * grande rispetto al file base il dizionario viene riscritto per intero e il
+ * giornale cancellato (checkpoint).
+ *
+ * Ogni record è composto da lunghezza, CRC32 e contenuto: un record scritto
+ * solo in parte, ad esempio per un crash durante il salvataggio, viene
+ * riconosciuto e scartato insieme a quelli successivi.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData
+ *
+ */
+final class DictionaryJournal {
+
+	private static final byte ADD_CHUNK = 1;
+	private static final byte REMOVE_CHUNK = 2;
+	private static final byte ADD_DEFINITION = 3;
+	private static final byte REMOVE_DEFINITION = 4;
+	/**
+	 * Dimensione minima del giornale prima di un checkpoint
+	 */
+	private static final long CHECKPOINT_MIN_SIZE = 64 * 1024;
+	/**
+	 * Il checkpoint avviene quando il giornale supera questa frazione del
+	 * file base
+	 */
+	private static final double CHECKPOINT_RATIO = 0.5;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Percorso del file giornale
+	 */
+	private final Path path;
+	/**
+	 * Record non ancora scritti sul file giornale
+	 */
+	private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	/**
+	 * Buffer riutilizzato per costruire il contenuto di un record
+	 */
+	private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+	private final DataOutputStream recordOut = new DataOutputStream(record);
+	private final CRC32 crc = new CRC32();
+	/**
+	 * Indica se le modifiche vengono registrate. Durante il caricamento e la
+	 * riapplicazione del giornale la registrazione è disattivata.
+	 */
+	private boolean recording = false;
+	/**
+	 * Dimensione e CRC32 del contenuto del file giornale, aggiornati durante
+	 * la lettura e la scrittura per le impronte di {@link FileFingerprint}
+	 * senza rileggere il file. Valgono solo se contentKnown è True, cioè se
+	 * nessun altro processo ha modificato il giornale dall'ultima lettura.
+	 * Come le impronte sono protetti dal saveLock di DictionaryData.
+	 */
+	private final CRC32 contentCrc = new CRC32();
+	private long contentSize = 0;
+	private boolean contentKnown = false;
+
+	/**
+	 * Costruttore che richiede la path del dizionario. Il giornale è il file
+	 * con lo stesso nome del dizionario e l'estensione .journal
+	 *
+	 * @param dictPath
+	 *            percorso del file dizionario
+	 */
+	DictionaryJournal(Path dictPath) {
+		path = dictPath.resolveSibling(dictPath.getFileName() + ".journal");
+	}
+
+	Path getPath() {
+		return path;
+	}
+
+	void setRecording(boolean _recording) {
+		this.recording = _recording;
+	}
+
+	boolean isRecording() {
+		return recording;
+	}
+
+	void chunkAdded(Chunk chunk) {
+		if (recording) {
+			try {
+				recordOut.writeByte(ADD_CHUNK);
+				writeString(recordOut, chunk.getHash());
+				writeString(recordOut, chunk.getWord());
+				writeString(recordOut, chunk.getType());
+				writeString(recordOut, chunk.getUnit());
+				endRecord();
+			} catch (IOException e) {
+				// non possibile scrivendo in memoria
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	void chunkRemoved(String hash) {
+		if (recording) {
+			try {
+				recordOut.writeByte(REMOVE_CHUNK);
+				writeString(recordOut, hash);
+				endRecord();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	void definitionAdded(Definition def) {
+		definitionRecord(ADD_DEFINITION, def);
+	}
+
+	void definitionRemoved(Definition def) {
+		definitionRecord(REMOVE_DEFINITION, def);
+	}
+
+	private void definitionRecord(byte type, Definition def) {
+		if (recording) {
+			try {
+				recordOut.writeByte(type);
+				writeString(recordOut, def.getHash());
+				writeString(recordOut, def.getText());
+				endRecord();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	/**
+	 * Completa il record corrente aggiungendolo a quelli da scrivere con
+	 * lunghezza e CRC32
+	 */
+	private void endRecord() throws IOException {
+		recordOut.flush();
+		byte[] bytes = record.toByteArray();
+		record.reset();
+		crc.reset();
+		crc.update(bytes, 0, bytes.length);
+		DataOutputStream out = new DataOutputStream(pending);
+		out.writeInt(bytes.length);
+		out.writeInt((int) crc.getValue());
+		out.write(bytes);
+		out.flush();
+	}
+
+	/**
+	 * Metodo che indica se ci sono modifiche non ancora scritte sul giornale
+	 */
+	boolean hasPending() {
+		return pending.size() > 0;
+	}
+
+	/**
+	 * Metodo che indica se il giornale, compresi i record non ancora scritti,
+	 * è diventato troppo grande rispetto al file base e conviene riscrivere
+	 * il dizionario.
+	 *
+	 * @param baseSize
+	 *            dimensione in byte del file dizionario
+	 * @return True se è necessario un checkpoint
+	 * @throws IOException
+	 *             se non è possibile leggere la dimensione del giornale
+	 */
+	boolean needsCheckpoint(long baseSize) throws IOException {
+		long size = pending.size();
+		if (Files.exists(path)) {
+			size += Files.size(path);
+		}
+		return size > Math.max(CHECKPOINT_MIN_SIZE,
+				(long) (baseSize * CHECKPOINT_RATIO));
+	}
+
+	/**
+	 * Metodo che aggiunge in coda al file giornale tutti i record non ancora
+	 * scritti. Se la scrittura fallisce il file viene riportato alla
+	 * dimensione precedente e i record restano da scrivere: un record scritto
+	 * solo in parte fermerebbe la lettura del giornale prima dei record
+	 * aggiunti dal salvataggio successivo.
+	 *
+	 * @param force
+	 *            se True il giornale viene forzato su disco prima di ritornare
+	 * @throws IOException
+	 *             se ci sono problemi nella scrittura del giornale
+	 */
+	void commit(boolean force) throws IOException {
+		if (pending.size() == 0) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND)) {
+			long size = channel.size();
+			// il CRC32 del contenuto si aggiorna solo se il file è quello
+			// letto o scritto l'ultima volta
+			boolean tracked = contentKnown && size == contentSize;
+			contentKnown = false;
+			try {
+				OutputStream out = Channels.newOutputStream(channel);
+				if (tracked) {
+					out = new CheckedOutputStream(out, contentCrc);
+				}
+				pending.writeTo(out);
+				if (force) {
+					channel.force(false);
+				}
+				if (tracked) {
+					contentSize = size + pending.size();
+					contentKnown = true;
+				}
+			} catch (IOException | RuntimeException e) {
+				try {
+					channel.truncate(size);
+				} catch (IOException suppressed) {
+					// la lettura si fermerà comunque al record incompleto
+					e.addSuppressed(suppressed);
+				}
+				throw e;
+			}
+		}
+		pending.reset();
+	}
+
+	/**
+	 * Posizione raggiunta nei record non ancora scritti, da passare a
+	 * {@link #reset(int)}
+	 */
+	int mark() {
+		return pending.size();
+	}
+
+	/**
+	 * Metodo che cancella il giornale e i record non ancora scritti fino a
+	 * mark, da chiamare dopo che il dizionario è stato riscritto per intero
+	 * con i dati presenti quando è stato ottenuto mark. I record successivi
+	 * restano da scrivere. Se nel frattempo i record sono stati scartati con
+	 * {@link #discard()} vengono cancellati tutti.
+	 *
+	 * @param mark
+	 *            posizione restituita da {@link #mark()}
+	 * @throws IOException
+	 *             se non è possibile cancellare il file giornale
+	 */
+	void reset(int mark) throws IOException {
+		byte[] bytes = pending.toByteArray();
+		pending.reset();
+		mark = Math.min(mark, bytes.length);
+		pending.write(bytes, mark, bytes.length - mark);
+		contentKnown = false;
+		Files.deleteIfExists(path);
+		this.knownEmpty();
+	}
+
+	/**
+	 * Metodo che scarta i record non ancora scritti, da chiamare quando il
+	 * dizionario deve comunque essere riscritto per intero
+	 */
+	void discard() {
+		pending.reset();
+	}
+
+	/**
+	 * Metodo che restituisce l'impronta del file giornale, calcolata senza
+	 * rileggerlo se il contenuto è noto
+	 *
+	 * @throws IOException
+	 *             se non è possibile leggere il file giornale
+	 */
+	FileFingerprint fingerprint() throws IOException {
+		if (contentKnown) {
+			return FileFingerprint.of(path, contentSize, contentCrc.getValue());
+		}
+		return FileFingerprint.of(path);
+	}
+
+	/**
+	 * Metodo da chiamare quando il giornale è stato modificato da un altro
+	 * processo: il CRC32 del contenuto non è più valido
+	 */
+	void forgetContent() {
+		contentKnown = false;
+	}
+
+	private void knownEmpty() {
+		contentCrc.reset();
+		contentSize = 0;
+		contentKnown = true;
+	}
+
+	/**
+	 * Metodo che riapplica a data tutte le modifiche registrate nel file
+	 * giornale, se esiste. La lettura si ferma al primo record incompleto o
+	 * corrotto, e il file viene troncato in modo che i record aggiunti in
+	 * seguito siano leggibili.
+	 *
+	 * @param data
+	 *            dati caricati dal file base
+	 * @throws IOException
+	 *             se ci sono problemi nella lettura del giornale
+	 */
+	void replay(DictionaryData data) throws IOException {
+		contentKnown = false;
+		if (Files.exists(path) == false) {
+			this.knownEmpty();
+			return;
+		}
+		boolean wasRecording = recording;
+		recording = false;
+		long size = Files.size(path);
+		long valid = 0;
+		contentCrc.reset();
+		try (InputStream stream = Files.newInputStream(path)) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					new CheckedInputStream(stream, contentCrc), BUFFER_SIZE));
+			while (true) {
+				byte[] bytes;
+				try {
+					int length = in.readInt();
+					int checksum = in.readInt();
+					if (length <= 0 || length > size - valid - 8) {
+						break;
+					}
+					bytes = new byte[length];
+					in.readFully(bytes);
+					crc.reset();
+					crc.update(bytes, 0, bytes.length);
+					if ((int) crc.getValue() != checksum) {
+						break;
+					}
+				} catch (EOFException e) {
+					// record incompleto
+					break;
+				}
+				apply(bytes, data);
+				valid += 8 + bytes.length;
+			}
+		} finally {
+			recording = wasRecording;
+		}
+		// si eliminano gli eventuali record incompleti
+		if (size > valid) {
+			try (FileChannel channel = FileChannel.open(path,
+					StandardOpenOption.WRITE)) {
+				channel.truncate(valid);
+			}
+		} else {
+			// tutto il file è stato letto, quindi il CRC32 è quello del
+			// contenuto
+			contentSize = size;
+			contentKnown = true;
+		}
+	}
+
+	private void apply(byte[] bytes, DictionaryData data) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				bytes));
+		byte type = in.readByte();
+		switch (type) {
+		case ADD_CHUNK: {
+			String hash = readString(in);
+			String word = readString(in);
+			String chunkType = readString(in);
+			String unit = readString(in);
+			data.addChunk(new Chunk(word, hash, chunkType, unit));
+			break;
+		}
+		case REMOVE_CHUNK:
+			data.removeChunk(readString(in));
+			break;
+		case ADD_DEFINITION: {
+			String hash = readString(in);
+			data.addDefinition(new Definition(hash, readString(in)));
+			break;
+		}
+		case REMOVE_DEFINITION: {
+			String hash = readString(in);
+			data.removeDefinition(new Definition(hash, readString(in)));
+			break;
+		}
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Scrive una stringa come lunghezza in byte e byte UTF-8, -1 se è null
+	 */
+	private static void writeString(DataOutputStream out, String s)
+			throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
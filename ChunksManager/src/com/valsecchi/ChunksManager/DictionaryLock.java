@@ -0,0 +1,160 @@
+package com.valsecchi.ChunksManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock sul file dizionario condiviso tra più processi. Il lock viene preso
+ * con {@link FileChannel#lock(long, long, boolean)} sul file con lo stesso
+ * nome del dizionario e l'estensione .lock, che contiene anche il numero di
+ * versione del dizionario: ogni processo che modifica il file dizionario o il
+ * giornale incrementa la versione, così gli altri processi sanno se devono
+ * rileggerlo.
+ * <p>
+ * I lock sui file appartengono all'intero processo e non possono essere presi
+ * due volte nello stesso processo, quindi all'interno del processo i lock
+ * sullo stesso file vengono presi uno alla volta con un lock locale.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData#synchronizeData(boolean)
+ *
+ */
+final class DictionaryLock implements Closeable {
+
+	/**
+	 * Lock locali per ogni file .lock del processo
+	 */
+	private static final ConcurrentMap<Path, ReentrantLock> LOCAL_LOCKS = new ConcurrentHashMap<>();
+
+	private final ReentrantLock local;
+	/**
+	 * Canale del file .lock, null se il file non può essere creato
+	 */
+	private final FileChannel channel;
+	private final FileLock fileLock;
+
+	private DictionaryLock(Path dictPath, boolean shared) throws IOException {
+		Path path = dictPath.toAbsolutePath().normalize();
+		path = path.resolveSibling(path.getFileName() + ".lock");
+		ReentrantLock created = new ReentrantLock();
+		ReentrantLock existing = LOCAL_LOCKS.putIfAbsent(path, created);
+		local = existing == null ? created : existing;
+		if (local.isHeldByCurrentThread()) {
+			// il lock sul file verrebbe preso due volte
+			throw new IllegalStateException("dictionary already locked: "
+					+ dictPath);
+		}
+		local.lock();
+		FileChannel opened = null;
+		try {
+			try {
+				opened = FileChannel.open(path, StandardOpenOption.CREATE,
+						StandardOpenOption.READ, StandardOpenOption.WRITE);
+			} catch (AccessDeniedException e) {
+				// in una cartella di sola lettura il dizionario può solo
+				// essere letto, non serve coordinarsi con chi lo modifica
+				if (shared == false) {
+					throw e;
+				}
+			}
+			channel = opened;
+			fileLock = opened == null ? null : opened.lock(0, Long.MAX_VALUE,
+					shared);
+		} catch (IOException | RuntimeException e) {
+			if (opened != null) {
+				opened.close();
+			}
+			local.unlock();
+			throw e;
+		}
+	}
+
+	/**
+	 * Prende il lock in lettura: altri processi possono leggere il dizionario
+	 * ma non modificarlo
+	 */
+	static DictionaryLock shared(Path dictPath) throws IOException {
+		return new DictionaryLock(dictPath, true);
+	}
+
+	/**
+	 * Prende il lock in scrittura: nessun altro processo può leggere o
+	 * modificare il dizionario
+	 */
+	static DictionaryLock exclusive(Path dictPath) throws IOException {
+		return new DictionaryLock(dictPath, false);
+	}
+
+	/**
+	 * Metodo che legge la versione del dizionario memorizzata nel file .lock
+	 *
+	 * @return la versione, 0 se il dizionario non è mai stato salvato con il
+	 *         lock
+	 * @throws IOException
+	 *             se non è possibile leggere il file
+	 */
+	long getVersion() throws IOException {
+		if (channel == null) {
+			return 0;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(8);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, buffer.position()) < 0) {
+				return 0;
+			}
+		}
+		buffer.flip();
+		return buffer.getLong();
+	}
+
+	/**
+	 * Metodo che incrementa la versione del dizionario, da chiamare dopo aver
+	 * modificato il file dizionario o il giornale con il lock in scrittura
+	 *
+	 * @param force
+	 *            se True la versione viene forzata su disco prima di
+	 *            ritornare
+	 * @return la nuova versione
+	 * @throws IOException
+	 *             se non è possibile scrivere il file
+	 */
+	long nextVersion(boolean force) throws IOException {
+		if (fileLock == null || fileLock.isShared()) {
+			throw new IllegalStateException("dictionary not locked for writing");
+		}
+		long version = this.getVersion() + 1;
+		ByteBuffer buffer = ByteBuffer.allocate(8);
+		buffer.putLong(version);
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, buffer.position());
+		}
+		if (force) {
+			channel.force(false);
+		}
+		return version;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (channel != null) {
+				// chiudendo il canale si rilascia anche il lock
+				channel.close();
+			}
+		} finally {
+			local.unlock();
+		}
+	}
+}
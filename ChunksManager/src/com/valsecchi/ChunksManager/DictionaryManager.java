@@ -1,495 +1,1050 @@
-package com.valsecchi.ChunksManager;
-
-import java.util.List;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-
-import org.jdom2.Document;
-import org.jdom2.Element;
-import org.jdom2.output.Format;
-import org.jdom2.output.XMLOutputter;
-
-/**
- * La classe DictionaryManager fa da ponte tra i dati contenuti in un oggetto
- * DictionaryData, e l'interfaccia grafica.
- * 
- * @author Davide Valsecchi
- * @since v.0.0.0
- * @versione v.0.0.0
- * @see com.valsecchi.ChunksManager.DictionaryData
- * 
- */
-public class DictionaryManager {
-
-	private Path path;
-	private DictionaryData data;
-	/**
-	 * buffer mappa che contiene le coppie di word/Chunk per mantenere in
-	 * memoria i chunk trovati con la ricerca
-	 */
-	private Map<String, Chunk> buffer;
-	private String dictName;
-	private int mode;
-	public static final int NULL_MODE = 0;
-	public static final int OFFLINE_MODE = 1;
-	public static final int ONLINE_MODE = 2;
-
-	/**
-	 * Costruttore dell'oggetto DictionaryManager
-	 * 
-	 * @param _mode
-	 *            parametro che indica la modalit di utilizzo del manager
-	 *            {@link #OFFLINE_MODE} o {@link #ONLINE_MODE}
-	 * @param name
-	 *            nome del dizionario
-	 * @param _path
-	 *            percorso del dizionario
-	 */
-	public DictionaryManager(int _mode, String name, Path _path) {
-		buffer = new HashMap<>();
-		mode = _mode;
-		dictName = name;
-		path = _path;
-		// si crea l'oggetto che gestisce i dati
-		data = new DictionaryData(path);
-	}
-
-	/**
-	 * Metodo che carica il database il memoria nell'oggetto {@link #data}
-	 * 
-	 * @return True se l'operazione va a buon fine
-	 * @throws IOException
-	 *             se ci sono problemi nella lettura del file dizionario viene
-	 *             lanciata l'eccezione
-	 */
-	public boolean loadDictionary() throws IOException {
-		if (this.data.loadData() != null) {
-			return true;
-		} else {
-			return false;
-		}
-	}
-
-	/**
-	 * Metodo utilizzato per il salvataggio del dizionario. Il metodo a seconda
-	 * della modalit di utilizzo del dizionario agisce diversamente. Se 
-	 * {@link #OFFLINE_MODE} semplicemente scrive i dati su disco. Se 
-	 * {@link #ONLINE_MODE} allora prima effettua il refresh dei dati caricando
-	 * un DictionaryData con il file sul disco, e passandolo a {@link #data} nel
-	 * metodo
-	 * {@link com.valsecchi.ChunksManager.DictionaryData#refreshData(DictionaryData)}
-	 * .Infine scrive i dati su disco.
-	 * 
-	 * @return si ritorna True se  stato salvato, False se il dizionario non 
-	 *         caricato
-	 * @throws IOException
-	 */
-	public boolean saveDictionary() throws IOException {
-		if (isLoaded() == true) {
-			if (mode == OFFLINE_MODE) {
-				// allora si scrive e basta
-				data.writeData(path);
-			} else {
-				// prima bisogna aggiornare, si deve creare un dictionaryData
-				// con la
-				// path attuale
-				data.refreshData(new DictionaryData(this.path));
-				// ora si riscrive
-				data.writeData(this.path);
-			}
-			// si svuota il buffer
-			buffer.clear();
-			// ri ritorna true
-			return true;
-		} else {
-			// se non  caricato si ritorna false
-			return false;
-		}
-	}
-
-	/**
-	 * Metodo utilizzabile solo quando siamo in modalit {@link #ONLINE_MODE}.
-	 * Il metodo esegue il refresh senza salvare i dati sul disco.
-	 * 
-	 * @throws IOException
-	 * @return restituisce True se il refresh  stato completato, False se non 
-	 *         possibile eseguire il refresh perch siamo in modalit
-	 *         {@link #OFFLINE_MODE}
-	 */
-	public boolean refreshDictionary() throws IOException {
-		if (mode == OFFLINE_MODE) {
-			// si svuota il buffer
-			buffer.clear();
-			return false;
-		} else {
-			// prima bisogna aggiornare, si deve creare un dictionaryData con la
-			// path attuale
-			data.refreshData(new DictionaryData(this.path).loadData());
-			// si svuota il buffer
-			buffer.clear();
-			return true;
-		}
-	}
-
-	/**
-	 * Metodo che ANNULLA TUTTE LE MODIFICHE fatte al dictionary dal
-	 * caricamento. Per fare ci ricrea l'oggetto {@link #data} con la path del
-	 * dizionario senza prima chiamare
-	 * {@link DictionaryData#refreshData(DictionaryData)}.
-	 * 
-	 * @return ritorna True se le operazioni vengono completate con successo,
-	 *         False se ci sono dei problemi di IO.
-	 */
-	public boolean undoChanges() {
-		// si ricrea data
-		data = new DictionaryData(this.path);
-		// si caricano i dati
-		try {
-			data.loadData();
-			return true;
-		} catch (IOException e) {
-			return false;
-		}
-	}
-
-	/**
-	 * Metodo che aggiunge un Chunk e relative definizioni ai dati dizionario di
-	 * {@link #data}. Se il chunk  stato aggiunto si aggiungono le definizioni,
-	 * se era gi presente si aggiornano. Il metodo non elimina le definizioni
-	 * che non sono presenti nel parametro se il chunk esiste gi, ma aggiunge
-	 * solo quelle non presenti.
-	 * 
-	 * @param word
-	 *            parola del chunk da aggiungere
-	 * @param type
-	 *            tipo del chunk da aggiungere
-	 * @param unit
-	 *            unit del chunk da aggiungere
-	 * @param definitions
-	 *            array si stringhe che rappresenta le definizioni. Deve sempre
-	 *            contenere almeno una defizione.
-	 * @return ritorna True se il chunk  stato aggiunto, False se il chunk era
-	 *         gi presente. NB:le definizioni vengono comunque sempre
-	 *         aggiornate
-	 */
-	public boolean addChunk(String word, String type, String unit,
-			List<String> definitions) {
-		// si crea un oggetto chunk da aggiungere
-		Chunk newC = new Chunk(word, type, unit);
-		// si aggiunge il chunk,
-		// isPresent memorizza se il chunk esisteva gi in memoria
-		boolean isPresent = data.addChunk(newC);
-		// allora si aggiornano le definizioni
-		List<Definition> defs = new ArrayList<>();
-		for (String s : definitions) {
-			defs.add(new Definition(newC.getHash(), s));
-		}
-		// si aggiornano le definizioni
-		data.addDefinitions(newC.getHash(), defs);
-		// si ritorna isPresent
-		return isPresent;
-	}
-
-	/**
-	 * Il metodo esegue la ricerca dei chunk con
-	 * {@link com.valsecchi.ChunksManager.DictionaryData#getChunksWithArguments(String, String, String)}
-	 * con i parametri passati come filtro. Il buffer dei chunk temporanei viene
-	 * svuotato e vengono inseriti i chunk trovati utilizzando come chiave la
-	 * loro word. In questo modo la classe client conoscer solo le words dei
-	 * chunk e tutti gli oggeti chunk saranno contenuti solo in
-	 * DictionaryManager e DizionaryData.
-	 * 
-	 * @param pattern
-	 *            parola del cercare nei chunk
-	 * @param type
-	 *            tipo dei chunk da cercare
-	 * @param unit
-	 *            unit dei chunk da cercare
-	 * @return restituisce una lista di stringhe. I chunks trovati, le altre
-	 *         informazioni sono ricavabili con il metodo
-	 *         {@link #getChunkAttributes(String)}
-	 */
-	public List<String> findChunk(String pattern, String type, String unit) {
-		// si cerca con data
-		List<Chunk> result = data.getChunksWithArguments(pattern, type, unit);
-		// si controlla che non sia vuoto
-		if (result == null || result.size() == 0) {
-			return null;
-		}
-		// si svuota il buffer
-		buffer.clear();
-		// si aggiungono al buffer le coppie word/Chunk in modo tale che si
-		// possa
-		// recuperare velocemente l'hash
-		for (Chunk c : result) {
-			buffer.put(c.getWord(), c);
-		}
-		// si restituiscono le parole
-		List<String> words = new ArrayList<>();
-		for (Chunk k : result) {
-			words.add(k.getWord());
-		}
-		// si restituisce il risultato
-		return words;
-	}
-
-	/**
-	 * Metodo che ricerca nei dati con {@link #data} le definizioni di una certa
-	 * parola. Il metodo prima controlla se la parola  memorizzata gi in
-	 * buffer (questa  la situazione pi favorevole perch il chunk  gi
-	 * disponibile; se non  in buffer, il metodo ricava il chunk da
-	 * {@link #data} con in metodo
-	 * {@link com.valsecchi.ChunksManager.DictionaryData#getChunksByWord(String)}
-	 * .
-	 * 
-	 * @param word
-	 *            parola di cui cercare le definizioni
-	 * @return ritorna la lista di definizioni, null se il chunk non esiste
-	 */
-	public List<String> getDefinitions(String word) {
-		// lista di definizioni
-		List<Definition> def = new ArrayList<>();
-		// si ricava il chunk
-		Chunk c = this.getChunk(word);
-		// si controlla che esista
-		if (c == null) {
-			return null;
-		} else {
-			// si aggiunge al buffer
-			this.buffer.put(c.getWord(), c);
-			// si cercano le definizioni
-			def = data.getDefinitions(c);
-		}
-
-		// si rielaborano le definizioni in stringhe
-		List<String> defs = new ArrayList<>();
-		for (Definition d : def) {
-			defs.add(d.getText());
-		}
-		return defs;
-	}
-
-	/**
-	 * Il metodo restituisce al client gli attributi di un chunk, accettando
-	 * come parametro la word del chunk. Infatti grazie al buffer, viene
-	 * ricavato il chunk giusto e costruito l'array risultato cos:
-	 * |hash|type|unit|.
-	 * 
-	 * @param word
-	 *            la parola che rappresenta il chunk
-	 * @return ritorna un array di stringhe che contengono gli attributi
-	 */
-	public String[] getChunkAttributes(String word) {
-		// si ricava il chunk
-		Chunk current = buffer.get(word);
-		String[] result = new String[3];
-		result[0] = current.getHash();
-		result[1] = current.getType();
-		result[2] = current.getUnit();
-		// si restituisce il risultato
-		return result;
-	}
-
-	/**
-	 * Metodo che dato un chunk permette di modificarne: -la parola: in questo
-	 * caso il vecchio chunk viene cancellato e ne viene creato uno nuovo,
-	 * meccanismo invisibile al codice client. -le definizioni: in questo caso
-	 * viene eseguito un confronto tra le vecchie definizioni e quelle nuove e
-	 * vengono effettuate le operazioni di aggiornamento necessarie.
-	 * 
-	 * Se la nuovo parola e quella originale sono uguali allora solo le
-	 * definizioni vengono modificate.
-	 * 
-	 * @param word_original
-	 *            parola del chunk originale
-	 * @param word_new
-	 *            nuova parola del chunk
-	 * @param newDefinition
-	 *            array di stringhe che contengono le definizioni da impostare
-	 * @return ritorna True se l'operazioni ha avuto successo, False se il chunk
-	 *         non esiste.
-	 */
-	public boolean modifyChunk(String word_original, String word_new,
-			List<String> newDefinitions) {
-		// si ricava il chunk
-		Chunk current = this.getChunk(word_original);
-		if (current == null) {
-			return false;
-		}
-		// si controlla se si vuole modificare solo le definizioni o anche il
-		// chun
-		if (word_original.equals(word_new) || word_new.equals("")) {
-			// allora si modificano le definizioni.
-			List<Definition> todelete = this.compareDefinitionToDelete(
-					newDefinitions, data.getDefinitions(current));
-			// si cancellano le definizioni da cancellare
-			data.removeDefinitions(current.getHash(), todelete);
-			// si aggiungono le definizioni da aggiungere
-			List<Definition> toAdd = new ArrayList<>();
-			for (String s : newDefinitions) {
-				toAdd.add(new Definition(current.getHash(), s));
-			}
-			data.addDefinitions(current.getHash(), toAdd);
-			return true;
-		} else {
-			// bisogna prima eliminare il vecchio chunk
-			data.removeChunk(current);
-			// ora se ne crea uno nuovo
-			this.addChunk(word_new, current.getType(), current.getUnit(),
-					newDefinitions);
-			return true;
-		}
-	}
-
-	/**
-	 * Metodo che elimina dai dati dizionario un Chunk.
-	 * 
-	 * @param word
-	 *            la parola del chunk da eliminare
-	 * @return ritorna True se il chunk  stato correttamente eliminato, False,
-	 *         se il chunk non esisteva
-	 */
-	public boolean removeChunk(String word) {
-		// si rimuove il chunk
-		Chunk current = this.getChunk(word);
-		if (current == null) {
-			return false;
-		}
-		boolean result = data.removeChunk(this.getChunk(word));
-		// si rimuove dal buffer se c'
-		if (result == true && buffer.containsKey(word)) {
-			buffer.remove(word);
-		}
-		return result;
-	}
-
-	/**
-	 * Metodo privato che ricava un chunk dalla corrispettiva parola, prima
-	 * cercandolo nel buffer e in caso non sia presente, caricandolo dalla
-	 * memoria ({@link #data}). Questo metodo  la scorciatoia per ricavare un
-	 * chunk nel dizionario in DictionaryManager.
-	 * 
-	 * @param word
-	 *            parola del chunk da restituire
-	 * @return ritorna null se il chunk non  presente
-	 */
-	private Chunk getChunk(String word) {
-		if (this.buffer.containsKey(word)) {
-			return this.buffer.get(word);
-		} else {
-			return data.getChunkBySpecificWord(word);
-		}
-	}
-
-	/**
-	 * Metodo che cambia la modalit del dizionario, facendo il salvataggio a
-	 * seconda del caso specifico.
-	 * 
-	 * @param mode
-	 *            nuova modalit da impostare
-	 * @return si ritorna True se il cambio  avvenuto con successo, False se la
-	 *         modalit era gi fissata sul valore passato o il valore non era
-	 *         valido.
-	 * @throws IOException
-	 *             viene lanciata l'eccezione in caso il salvataggio provochi
-	 *             dei problemi
-	 */
-	public boolean changeMode(int _mode) throws IOException {
-		// ora si imposta la modalit
-		if (_mode == OFFLINE_MODE || _mode == ONLINE_MODE) {
-			if (_mode == this.mode) {
-				// si ritorna
-				return false;
-			} else {
-				// si salva
-				this.saveDictionary();
-				// si imposta
-				this.mode = _mode;
-				return true;
-			}
-		} else {
-			return false;
-		}
-	}
-
-	/**
-	 * Metodo che esponde il {@link #mode} corrente del dictionary manager
-	 * 
-	 * @return
-	 */
-	public int getMode() {
-		return this.mode;
-	}
-
-	/**
-	 * Metodo che restituisce il nome del dizionario rappresentato da questo
-	 * oggetto DictionaryManager
-	 */
-	public String getDictionaryName() {
-		return this.dictName;
-	}
-
-	/**
-	 * Metodo che compara due liste di definizioni per determinare quelle da
-	 * eliminare in old
-	 * 
-	 * @param current
-	 *            lista di definizioni nuove, (come stringhe)
-	 * @param old
-	 *            lista di definizioni vecchie da confrontare
-	 * @return ritorna la lista di definizioni da eliminare
-	 */
-	private List<Definition> compareDefinitionToDelete(List<String> current,
-			List<Definition> old) {
-		List<Definition> todelete = new ArrayList<>();
-		for (Definition d : old) {
-			boolean isThere = false;
-			for (String d2 : current) {
-				if (d2.equals(d.getText())) {
-					isThere = true;
-					break;
-				}
-			}
-			if (isThere == false) {
-				todelete.add(d);
-			}
-		}
-		return todelete;
-	}
-
-	/**
-	 * Metodo che mostra se il dizionario  caricato o no.
-	 * 
-	 * @return ritorna True se il dizionario  caricato in memoria
-	 */
-	public boolean isLoaded() {
-		return data.isDictionaryLoaded();
-	}
-
-	/**
-	 * Metodo che crea un nuovo dizionario.
-	 * 
-	 * @param _path
-	 *            percorso in cui verr salvato il nuovo dizionario.
-	 * @return ritorna true se le operazioni sono andate a buon fine, false in
-	 *         caso di errore.
-	 */
-	public static boolean CreateDictionary(String _path) {
-		// nuovo document
-		Element root = new Element("ChunksDictionary");
-		Document newD = new Document(root);
-		XMLOutputter outputter = new XMLOutputter();
-		outputter.setFormat(Format.getPrettyFormat());
-		try {
-			outputter.output(newD, new FileOutputStream(_path));
-		} catch (IOException e) {
-			// si ritorna false
-			return false;
-		}
-		return true;
-	}
-}
+package com.valsecchi.ChunksManager;
+
+import java.util.List;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * La classe DictionaryManager fa da ponte tra i dati contenuti in un oggetto
+ * DictionaryData, e l'interfaccia grafica.
+ * 
+ * Le ricerche possono essere eseguite da più thread sullo stesso manager:
+ * ogni thread ha il proprio buffer dei chunk trovati, quindi
+ * {@link #getChunkAttributes(String)} restituisce i chunk dell'ultima ricerca
+ * fatta dallo stesso thread. Le modifiche e il salvataggio restano
+ * serializzati da DictionaryData.
+ * 
+ * @author Davide Valsecchi
+ * @since v.0.0.0
+ * @versione v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData
+ * 
+ */
+public class DictionaryManager {
+
+	private Path path;
+	private DictionaryData data;
+	/**
+	 * buffer mappa che contiene le coppie di word/Chunk per mantenere in
+	 * memoria i chunk trovati con la ricerca. Ogni thread ha il proprio
+	 * buffer, da ottenere con {@link #buffer()}.
+	 */
+	private final ThreadLocal<ChunkBuffer> buffers = new ThreadLocal<ChunkBuffer>() {
+		@Override
+		protected ChunkBuffer initialValue() {
+			return new ChunkBuffer();
+		}
+	};
+	/**
+	 * Incrementato da {@link #clearBuffers()}: i buffer con una generazione
+	 * diversa vengono svuotati al primo utilizzo
+	 */
+	private final AtomicInteger bufferGeneration = new AtomicInteger();
+	private String dictName;
+	private int mode;
+	/**
+	 * Indica se il file dizionario viene salvato senza indentazione
+	 */
+	private boolean compactFormat = false;
+	/**
+	 * Politica di sincronizzazione e lunghezza degli n-grammi impostate, che
+	 * vengono riapplicate ai dati ricreati da {@link #undoChanges()}
+	 */
+	private int syncPolicy = DictionaryData.SYNC_ON_CLOSE;
+	private int ngramLength = NGramIndex.DEFAULT_LENGTH;
+	/**
+	 * Thread che aggiorna automaticamente il dizionario in
+	 * {@link #ONLINE_MODE}, null se il refresh automatico non è attivo
+	 */
+	private DictionaryWatcher watcher;
+	/**
+	 * Tempo di attesa del refresh automatico, per ricrearlo con
+	 * {@link #undoChanges()}
+	 */
+	private long watcherDelay;
+	public static final int NULL_MODE = 0;
+	public static final int OFFLINE_MODE = 1;
+	public static final int ONLINE_MODE = 2;
+
+	/**
+	 * Costruttore dell'oggetto DictionaryManager
+	 * 
+	 * @param _mode
+	 *            parametro che indica la modalità di utilizzo del manager
+	 *            {@link #OFFLINE_MODE} o {@link #ONLINE_MODE}
+	 * @param name
+	 *            nome del dizionario
+	 * @param _path
+	 *            percorso del dizionario
+	 */
+	public DictionaryManager(int _mode, String name, Path _path) {
+		mode = _mode;
+		dictName = name;
+		path = _path;
+		// si crea l'oggetto che gestisce i dati
+		data = new DictionaryData(path);
+	}
+
+	/**
+	 * Metodo che carica il database il memoria nell'oggetto {@link #data}
+	 * 
+	 * @return True se l'operazione va a buon fine
+	 * @throws IOException
+	 *             se ci sono problemi nella lettura del file dizionario viene
+	 *             lanciata l'eccezione
+	 */
+	public boolean loadDictionary() throws IOException {
+		if (this.data.loadData() != null) {
+			return true;
+		} else {
+			return false;
+		}
+	}
+
+	/**
+	 * Metodo utilizzato per il salvataggio del dizionario. Il metodo a seconda
+	 * della modalità di utilizzo del dizionario agisce diversamente. Se è
+	 * {@link #OFFLINE_MODE} semplicemente scrive su disco le modifiche con
+	 * {@link com.valsecchi.ChunksManager.DictionaryData#saveData(boolean)}. Se è
+	 * {@link #ONLINE_MODE} allora prima effettua il refresh dei dati con le
+	 * modifiche salvate dagli altri processi e infine scrive i dati su disco,
+	 * con
+	 * {@link com.valsecchi.ChunksManager.DictionaryData#synchronizeData(boolean)}
+	 * . Il file rimane bloccato per tutta l'operazione e viene riletto solo se
+	 * un altro processo lo ha modificato.
+	 * 
+	 * @return si ritorna True se è stato salvato, False se il dizionario non è
+	 *         caricato
+	 * @throws IOException
+	 */
+	public boolean saveDictionary() throws IOException {
+		if (isLoaded() == true) {
+			if (mode == OFFLINE_MODE) {
+				// allora si salvano solo le modifiche nel giornale
+				data.saveData(compactFormat);
+			} else {
+				// si aggiorna e si riscrive con il file bloccato, così non si
+				// perdono le modifiche degli altri processi
+				data.synchronizeData(compactFormat);
+			}
+			// si svuotano i buffer di tutti i thread
+			this.clearBuffers();
+			// ri ritorna true
+			return true;
+		} else {
+			// se non è caricato si ritorna false
+			return false;
+		}
+	}
+
+	/**
+	 * Metodo utilizzabile solo quando siamo in modalità {@link #ONLINE_MODE}.
+	 * Il metodo esegue il refresh senza salvare i dati sul disco. Il file viene
+	 * riletto solo se un altro processo lo ha modificato, vedere
+	 * {@link DictionaryData#refreshData()}.
+	 * 
+	 * @throws IOException
+	 * @return restituisce True se il refresh è stato completato, False se non è
+	 *         possibile eseguire il refresh perchè siamo in modalità
+	 *         {@link #OFFLINE_MODE}
+	 */
+	public boolean refreshDictionary() throws IOException {
+		if (mode == OFFLINE_MODE) {
+			// si svuotano i buffer di tutti i thread
+			this.clearBuffers();
+			return false;
+		} else {
+			// si aggiorna solo se il file è cambiato
+			data.refreshData();
+			// si svuotano i buffer di tutti i thread
+			this.clearBuffers();
+			return true;
+		}
+	}
+
+	/**
+	 * Metodo che attiva il refresh automatico in {@link #ONLINE_MODE}: un
+	 * thread osserva il file dizionario e quando un altro processo lo salva
+	 * aggiorna i dati con {@link DictionaryData#refreshData()}. Il refresh
+	 * viene eseguito quando non arrivano modifiche per il tempo indicato,
+	 * così più salvataggi ravvicinati causano una sola lettura, che avviene
+	 * nel thread e non blocca le ricerche. Il buffer dei chunk trovati non
+	 * viene svuotato. Se il refresh automatico era già attivo viene riavviato
+	 * con il nuovo tempo di attesa.
+	 * 
+	 * @param delay
+	 *            millisecondi senza modifiche al file prima del refresh
+	 * @return True se il refresh automatico è stato attivato, False se siamo
+	 *         in modalità {@link #OFFLINE_MODE} o il dizionario non è caricato
+	 * @throws IOException
+	 *             se non è possibile osservare la cartella del dizionario
+	 */
+	public boolean startAutoRefresh(long delay) throws IOException {
+		if (mode == OFFLINE_MODE || isLoaded() == false) {
+			return false;
+		}
+		this.stopAutoRefresh();
+		watcher = new DictionaryWatcher(data, path, delay);
+		watcherDelay = delay;
+		return true;
+	}
+
+	/**
+	 * Metodo che disattiva il refresh automatico, attendendo la fine di quello
+	 * in corso
+	 */
+	public void stopAutoRefresh() {
+		if (watcher != null) {
+			try {
+				watcher.close();
+			} catch (IOException e) {
+				// il thread viene comunque fermato
+			}
+			watcher = null;
+		}
+	}
+
+	/**
+	 * Metodo che restituisce la latenza dell'ultimo refresh automatico che ha
+	 * riletto il file: il tempo tra la prima modifica del file rilevata e
+	 * l'aggiornamento dei dati, compresa l'attesa della fine dei salvataggi.
+	 * 
+	 * @return la latenza in millisecondi, -1 se il refresh automatico non è
+	 *         attivo o non ha ancora riletto il file
+	 */
+	public long getRefreshLatency() {
+		DictionaryWatcher current = watcher;
+		return current == null ? -1 : current.getLastLatency();
+	}
+
+	/**
+	 * Metodo che restituisce il numero di refresh automatici che hanno
+	 * riletto il file da quando è stato attivato
+	 */
+	public int getRefreshCount() {
+		DictionaryWatcher current = watcher;
+		return current == null ? 0 : current.getRefreshCount();
+	}
+
+	/**
+	 * Metodo che restituisce l'errore dell'ultimo refresh automatico; il
+	 * refresh viene ritentato alla modifica successiva del file
+	 * 
+	 * @return l'eccezione, un'IOException se il file non è leggibile o
+	 *         un'eccezione non controllata se il contenuto non è valido; null
+	 *         se l'ultimo refresh è andato a buon fine
+	 */
+	public Exception getRefreshError() {
+		DictionaryWatcher current = watcher;
+		return current == null ? null : current.getLastError();
+	}
+
+	/**
+	 * Metodo che ANNULLA TUTTE LE MODIFICHE fatte al dictionary dal
+	 * caricamento. Per fare ciò ricrea l'oggetto {@link #data} con la path del
+	 * dizionario senza prima chiamare
+	 * {@link DictionaryData#refreshData(DictionaryData)}.
+	 * 
+	 * @return ritorna True se le operazioni vengono completate con successo,
+	 *         False se ci sono dei problemi di IO.
+	 */
+	public boolean undoChanges() {
+		// il refresh automatico aggiorna ancora i vecchi dati
+		boolean watching = watcher != null;
+		this.stopAutoRefresh();
+		// si ricrea data con le stesse impostazioni, prima del caricamento
+		// così gli indici vengono costruiti una sola volta
+		data = new DictionaryData(this.path);
+		data.setSyncPolicy(syncPolicy);
+		if (ngramLength != NGramIndex.DEFAULT_LENGTH) {
+			data.setNGramLength(ngramLength);
+		}
+		// si caricano i dati
+		try {
+			data.loadData();
+			if (watching) {
+				this.startAutoRefresh(watcherDelay);
+			}
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Metodo che aggiunge un Chunk e relative definizioni ai dati dizionario di
+	 * {@link #data}. Se il chunk è stato aggiunto si aggiungono le definizioni,
+	 * se era già presente si aggiornano. Il metodo non elimina le definizioni
+	 * che non sono presenti nel parametro se il chunk esiste già, ma aggiunge
+	 * solo quelle non presenti.
+	 * 
+	 * @param word
+	 *            parola del chunk da aggiungere
+	 * @param type
+	 *            tipo del chunk da aggiungere
+	 * @param unit
+	 *            unità del chunk da aggiungere
+	 * @param definitions
+	 *            array si stringhe che rappresenta le definizioni. Deve sempre
+	 *            contenere almeno una defizione.
+	 * @return ritorna True se il chunk è stato aggiunto, False se il chunk era
+	 *         già presente. NB:le definizioni vengono comunque sempre
+	 *         aggiornate
+	 */
+	public boolean addChunk(String word, String type, String unit,
+			List<String> definitions) {
+		// si crea un oggetto chunk da aggiungere, con l'hash che la parola ha
+		// in questo dizionario per evitare le collisioni
+		Chunk newC = new Chunk(word, data.resolveHash(word), type, unit);
+		// si aggiunge il chunk,
+		// isPresent memorizza se il chunk esisteva già in memoria
+		boolean isPresent = data.addChunk(newC);
+		// allora si aggiornano le definizioni
+		List<Definition> defs = new ArrayList<>();
+		for (String s : definitions) {
+			defs.add(new Definition(newC.getHash(), s));
+		}
+		// si aggiornano le definizioni
+		data.addDefinitions(newC.getHash(), defs);
+		// si ritorna isPresent
+		return isPresent;
+	}
+
+	/**
+	 * Il metodo esegue la ricerca dei chunk con
+	 * {@link com.valsecchi.ChunksManager.DictionaryData#getChunksWithArguments(String, String, String)}
+	 * con i parametri passati come filtro. Il buffer dei chunk temporanei viene
+	 * svuotato e vengono inseriti i chunk trovati utilizzando come chiave la
+	 * loro word. In questo modo la classe client conoscerà solo le words dei
+	 * chunk e tutti gli oggeti chunk saranno contenuti solo in
+	 * DictionaryManager e DizionaryData.
+	 * 
+	 * @param pattern
+	 *            parola del cercare nei chunk
+	 * @param type
+	 *            tipo dei chunk da cercare
+	 * @param unit
+	 *            unit dei chunk da cercare
+	 * @return restituisce una lista di stringhe. I chunks trovati, le altre
+	 *         informazioni sono ricavabili con il metodo
+	 *         {@link #getChunkAttributes(String)}
+	 */
+	public List<String> findChunk(String pattern, String type, String unit) {
+		// si cerca con data
+		List<Chunk> result = data.getChunksWithArguments(pattern, type, unit);
+		// si controlla che non sia vuoto
+		if (result == null || result.size() == 0) {
+			return null;
+		}
+		// si svuota il buffer
+		Map<String, Chunk> buffer = this.buffer();
+		buffer.clear();
+		// si aggiungono al buffer le coppie word/Chunk in modo tale che si
+		// possa recuperare velocemente l'hash, e si raccolgono le parole
+		List<String> words = new ArrayList<>(result.size());
+		for (Chunk c : result) {
+			buffer.put(c.getWord(), c);
+			words.add(c.getWord());
+		}
+		// si restituisce il risultato
+		return words;
+	}
+
+	/**
+	 * Metodo che restituisce una pagina dei risultati di
+	 * {@link #findChunk(String, String, String)}, saltando i primi offset
+	 * chunk trovati. Vengono cercati solo i chunk necessari a riempire la
+	 * pagina; per le pagine successive conviene utilizzare il token della
+	 * pagina con {@link #findChunk(String, String, String, String, int)}. Il
+	 * buffer dei chunk viene svuotato e riempito con i chunk della pagina.
+	 * 
+	 * @param pattern
+	 *            parola del cercare nei chunk
+	 * @param type
+	 *            tipo dei chunk da cercare
+	 * @param unit
+	 *            unit dei chunk da cercare
+	 * @param offset
+	 *            numero di chunk trovati da saltare
+	 * @param limit
+	 *            numero massimo di parole della pagina
+	 * @return la pagina delle parole trovate
+	 */
+	public ResultPage<String> findChunk(String pattern, String type,
+			String unit, int offset, int limit) {
+		return this.toWords(data.getChunksWithArguments(pattern, type, unit,
+				offset, limit));
+	}
+
+	/**
+	 * Metodo che restituisce la pagina dei risultati di
+	 * {@link #findChunk(String, String, String)} che segue quella da cui è
+	 * stato ottenuto il token. Il buffer dei chunk viene svuotato e riempito
+	 * con i chunk della pagina.
+	 * 
+	 * @param pattern
+	 *            parola del cercare nei chunk
+	 * @param type
+	 *            tipo dei chunk da cercare
+	 * @param unit
+	 *            unit dei chunk da cercare
+	 * @param token
+	 *            token della pagina precedente, null per la prima pagina
+	 * @param limit
+	 *            numero massimo di parole della pagina
+	 * @return la pagina delle parole trovate
+	 * @throws IllegalArgumentException
+	 *             se il token non è valido o è scaduto
+	 */
+	public ResultPage<String> findChunk(String pattern, String type,
+			String unit, String token, int limit) {
+		return this.toWords(data.getChunksWithArguments(pattern, type, unit,
+				token, limit));
+	}
+
+	/**
+	 * Metodo che conta i chunk che verrebbero trovati da
+	 * {@link #findChunk(String, String, String)}, senza creare la lista dei
+	 * risultati e senza modificare il buffer.
+	 * 
+	 * @param pattern
+	 *            parola del cercare nei chunk
+	 * @param type
+	 *            tipo dei chunk da cercare
+	 * @param unit
+	 *            unit dei chunk da cercare
+	 * @return il numero di chunk trovati
+	 */
+	public int countChunks(String pattern, String type, String unit) {
+		return data.countChunksWithArguments(pattern, type, unit);
+	}
+
+	/**
+	 * Inserisce nel buffer i chunk della pagina e restituisce la pagina delle
+	 * loro parole
+	 */
+	private ResultPage<String> toWords(ResultPage<Chunk> page) {
+		Map<String, Chunk> buffer = this.buffer();
+		buffer.clear();
+		List<String> words = new ArrayList<>(page.getItems().size());
+		for (Chunk c : page.getItems()) {
+			buffer.put(c.getWord(), c);
+			words.add(c.getWord());
+		}
+		return new ResultPage<>(words, page.getNextToken());
+	}
+
+	/**
+	 * Il metodo esegue la ricerca approssimata dei chunk con
+	 * {@link com.valsecchi.ChunksManager.DictionaryData#getChunksByDistance(String, int, String, String)}
+	 * , trovando le parole che distano al più maxDistance caratteri inseriti,
+	 * eliminati o sostituiti da word. Come in
+	 * {@link #findChunk(String, String, String)} il buffer dei chunk viene
+	 * svuotato e riempito con i chunk trovati.
+	 * 
+	 * @param word
+	 *            parola da cercare, anche scritta in modo errato
+	 * @param type
+	 *            tipo dei chunk da cercare
+	 * @param unit
+	 *            unit dei chunk da cercare
+	 * @param maxDistance
+	 *            distanza massima, 0 per cercare solo la parola esatta
+	 * @return lista delle parole trovate, ordinate dalla più vicina; null se
+	 *         non ce ne sono
+	 */
+	public List<String> findChunk(String word, String type, String unit,
+			int maxDistance) {
+		List<Chunk> result = data.getChunksByDistance(word, maxDistance, type,
+				unit);
+		if (result.size() == 0) {
+			return null;
+		}
+		Map<String, Chunk> buffer = this.buffer();
+		buffer.clear();
+		List<String> words = new ArrayList<>();
+		for (Chunk c : result) {
+			buffer.put(c.getWord(), c);
+			words.add(c.getWord());
+		}
+		return words;
+	}
+
+	/**
+	 * Il metodo ricerca i chunk in base al testo delle loro definizioni con
+	 * {@link com.valsecchi.ChunksManager.DictionaryData#getChunksByDefinition(String, int)}
+	 * , per trovare le parole partendo dal loro significato. Come in
+	 * {@link #findChunk(String, String, String)} il buffer dei chunk viene
+	 * svuotato e riempito con i chunk trovati.
+	 * 
+	 * @param terms
+	 *            termini da cercare nelle definizioni, separati da spazi o
+	 *            punteggiatura
+	 * @param mode
+	 *            {@link com.valsecchi.ChunksManager.DictionaryData#ALL_TERMS}
+	 *            se le definizioni devono contenere tutti i termini,
+	 *            {@link com.valsecchi.ChunksManager.DictionaryData#ANY_TERM}
+	 *            se ne basta uno
+	 * @return lista delle parole trovate, null se non ce ne sono
+	 */
+	public List<String> findChunkByDefinition(String terms, int mode) {
+		List<Chunk> result = data.getChunksByDefinition(terms, mode);
+		if (result.size() == 0) {
+			return null;
+		}
+		Map<String, Chunk> buffer = this.buffer();
+		buffer.clear();
+		List<String> words = new ArrayList<>();
+		for (Chunk c : result) {
+			buffer.put(c.getWord(), c);
+			words.add(c.getWord());
+		}
+		return words;
+	}
+
+	/**
+	 * Il metodo ricerca i chunk le cui definizioni sono più rilevanti per i
+	 * termini specificati con
+	 * {@link com.valsecchi.ChunksManager.DictionaryData#getChunksByRelevance(String, int)}
+	 * . Il buffer dei chunk viene svuotato e riempito con i chunk trovati.
+	 * 
+	 * @param terms
+	 *            termini da cercare nelle definizioni
+	 * @param limit
+	 *            numero massimo di risultati
+	 * @return lista delle parole trovate con il loro punteggio, ordinate dalla
+	 *         più rilevante; null se non ce ne sono
+	 */
+	public List<DefinitionMatch> findChunkByRelevance(String terms, int limit) {
+		List<DefinitionMatch> result = data.getChunksByRelevance(terms, limit);
+		if (result.size() == 0) {
+			return null;
+		}
+		Map<String, Chunk> buffer = this.buffer();
+		buffer.clear();
+		for (DefinitionMatch m : result) {
+			buffer.put(m.getWord(), m.getChunk());
+		}
+		return result;
+	}
+
+	/**
+	 * Metodo che trova in un testo tutte le parole dei chunk del dizionario
+	 * con {@link com.valsecchi.ChunksManager.DictionaryData#annotate(Reader, boolean)}
+	 * , con la posizione, l'hash, il tipo e l'unità di ogni parola trovata.
+	 * Il buffer dei chunk non viene modificato.
+	 * 
+	 * @param text
+	 *            testo in cui cercare le parole
+	 * @param wholeWords
+	 *            True per trovare solo le parole intere
+	 * @return lista delle parole trovate, in ordine di posizione finale
+	 */
+	public List<Annotation> annotate(String text, boolean wholeWords) {
+		try {
+			return data.annotate(new StringReader(text), wholeWords);
+		} catch (IOException e) {
+			// la lettura di una stringa non può fallire
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Come {@link #annotate(String, boolean)}, ma legge il testo da un
+	 * Reader senza doverlo caricare tutto in memoria.
+	 * 
+	 * @param text
+	 *            testo in cui cercare le parole
+	 * @param wholeWords
+	 *            True per trovare solo le parole intere
+	 * @return lista delle parole trovate, in ordine di posizione finale
+	 * @throws IOException
+	 *             se la lettura del testo non riesce
+	 */
+	public List<Annotation> annotate(Reader text, boolean wholeWords)
+			throws IOException {
+		return data.annotate(text, wholeWords);
+	}
+
+	/**
+	 * Metodo che restituisce le parole del dizionario che iniziano con il
+	 * prefisso, in ordine alfabetico, per il completamento automatico. Il
+	 * costo dipende dalla lunghezza del prefisso e dal numero di parole
+	 * richieste, non dalla dimensione del dizionario. Il buffer dei chunk non
+	 * viene modificato.
+	 * 
+	 * @param prefix
+	 *            prefisso delle parole
+	 * @param limit
+	 *            numero massimo di parole restituite
+	 * @return lista delle parole trovate, vuota se non ce ne sono
+	 */
+	public List<String> complete(String prefix, int limit) {
+		return this.complete(prefix, "", "", limit);
+	}
+
+	/**
+	 * Metodo che restituisce le parole del dizionario che iniziano con il
+	 * prefisso, limitandosi ai chunk con il tipo e l'unità specificati come in
+	 * {@link #findChunk(String, String, String)}.
+	 * 
+	 * @param prefix
+	 *            prefisso delle parole
+	 * @param type
+	 *            tipo dei chunk, "" per non filtrare
+	 * @param unit
+	 *            unit dei chunk, "" per non filtrare
+	 * @param limit
+	 *            numero massimo di parole restituite
+	 * @return lista delle parole trovate, vuota se non ce ne sono
+	 */
+	public List<String> complete(String prefix, String type, String unit,
+			int limit) {
+		List<String> words = new ArrayList<>();
+		for (Chunk c : data.getChunksByPrefix(prefix, type, unit, limit)) {
+			words.add(c.getWord());
+		}
+		return words;
+	}
+
+	/**
+	 * Metodo che descrive come verrebbe eseguita la ricerca
+	 * {@link #findChunk(String, String, String)} con gli stessi parametri:
+	 * quale indice viene usato per primo e quanti chunk si stima che
+	 * soddisfino ogni filtro.
+	 *
+	 * @param pattern
+	 *            parola del cercare nei chunk
+	 * @param type
+	 *            tipo dei chunk da cercare
+	 * @param unit
+	 *            unit dei chunk da cercare
+	 * @return descrizione del piano di ricerca
+	 */
+	public String explainFind(String pattern, String type, String unit) {
+		return data.explainQuery(pattern, type, unit);
+	}
+
+	/**
+	 * Metodo che verifica gli hash di tutti i chunk del dizionario con
+	 * {@link com.valsecchi.ChunksManager.DictionaryData#verifyHashes()}.
+	 * 
+	 * @return lista dei problemi trovati, vuota se non ce ne sono
+	 * @throws InterruptedException
+	 *             se il thread viene interrotto durante la verifica
+	 */
+	public List<HashConflict> verifyHashes() throws InterruptedException {
+		return data.verifyHashes();
+	}
+
+	/**
+	 * Metodo che ricerca nei dati con {@link #data} le definizioni di una certa
+	 * parola. Il metodo prima controlla se la parola è memorizzata già in
+	 * buffer (questa è la situazione più favorevole perchè il chunk è già
+	 * disponibile; se non è in buffer, il metodo ricava il chunk da
+	 * {@link #data} con in metodo
+	 * {@link com.valsecchi.ChunksManager.DictionaryData#getChunksByWord(String)}
+	 * .
+	 * 
+	 * @param word
+	 *            parola di cui cercare le definizioni
+	 * @return ritorna la lista di definizioni, null se il chunk non esiste
+	 */
+	public List<String> getDefinitions(String word) {
+		// lista di definizioni
+		List<Definition> def = new ArrayList<>();
+		// si ricava il chunk
+		Chunk c = this.getChunk(word);
+		// si controlla che esista
+		if (c == null) {
+			return null;
+		} else {
+			// si aggiunge al buffer
+			this.buffer().put(c.getWord(), c);
+			// si cercano le definizioni
+			def = data.getDefinitions(c);
+		}
+
+		// si rielaborano le definizioni in stringhe
+		List<String> defs = new ArrayList<>();
+		for (Definition d : def) {
+			defs.add(d.getText());
+		}
+		return defs;
+	}
+
+	/**
+	 * Il metodo restituisce al client gli attributi di un chunk, accettando
+	 * come parametro la word del chunk. Infatti grazie al buffer, viene
+	 * ricavato il chunk giusto e costruito l'array risultato così:
+	 * |hash|type|unit|.
+	 * 
+	 * @param word
+	 *            la parola che rappresenta il chunk
+	 * @return ritorna un array di stringhe che contengono gli attributi
+	 */
+	public String[] getChunkAttributes(String word) {
+		// si ricava il chunk, dai dati se il buffer è stato svuotato
+		Chunk current = this.getChunk(word);
+		String[] result = new String[3];
+		result[0] = current.getHash();
+		result[1] = current.getType();
+		result[2] = current.getUnit();
+		// si restituisce il risultato
+		return result;
+	}
+
+	/**
+	 * Metodo che dato un chunk permette di modificarne: -la parola: in questo
+	 * caso il vecchio chunk viene cancellato e ne viene creato uno nuovo,
+	 * meccanismo invisibile al codice client. -le definizioni: in questo caso
+	 * viene eseguito un confronto tra le vecchie definizioni e quelle nuove e
+	 * vengono effettuate le operazioni di aggiornamento necessarie.
+	 * 
+	 * Se la nuovo parola e quella originale sono uguali allora solo le
+	 * definizioni vengono modificate.
+	 * 
+	 * @param word_original
+	 *            parola del chunk originale
+	 * @param word_new
+	 *            nuova parola del chunk
+	 * @param newDefinition
+	 *            array di stringhe che contengono le definizioni da impostare
+	 * @return ritorna True se l'operazioni ha avuto successo, False se il chunk
+	 *         non esiste.
+	 */
+	public boolean modifyChunk(String word_original, String word_new,
+			List<String> newDefinitions) {
+		// si ricava il chunk
+		Chunk current = this.getChunk(word_original);
+		if (current == null) {
+			return false;
+		}
+		// si controlla se si vuole modificare solo le definizioni o anche il
+		// chun
+		if (word_original.equals(word_new) || word_new.equals("")) {
+			// allora si modificano le definizioni.
+			List<Definition> todelete = this.compareDefinitionToDelete(
+					newDefinitions, data.getDefinitions(current));
+			// si cancellano le definizioni da cancellare
+			data.removeDefinitions(current.getHash(), todelete);
+			// si aggiungono le definizioni da aggiungere
+			List<Definition> toAdd = new ArrayList<>();
+			for (String s : newDefinitions) {
+				toAdd.add(new Definition(current.getHash(), s));
+			}
+			data.addDefinitions(current.getHash(), toAdd);
+		} else {
+			// bisogna prima eliminare il vecchio chunk
+			data.removeChunk(current);
+			// ora se ne crea uno nuovo
+			this.addChunk(word_new, current.getType(), current.getUnit(),
+					newDefinitions);
+		}
+		// i buffer degli altri thread possono contenere il chunk modificato
+		this.clearBuffers();
+		return true;
+	}
+
+	/**
+	 * Metodo che elimina dai dati dizionario un Chunk.
+	 * 
+	 * @param word
+	 *            la parola del chunk da eliminare
+	 * @return ritorna True se il chunk è stato correttamente eliminato, False,
+	 *         se il chunk non esisteva
+	 */
+	public boolean removeChunk(String word) {
+		// si rimuove il chunk
+		Chunk current = this.getChunk(word);
+		if (current == null) {
+			return false;
+		}
+		boolean result = data.removeChunk(this.getChunk(word));
+		// si svuotano i buffer di tutti i thread, che possono contenere il
+		// chunk rimosso
+		if (result == true) {
+			this.clearBuffers();
+		}
+		return result;
+	}
+
+	/**
+	 * Metodo privato che ricava un chunk dalla corrispettiva parola, prima
+	 * cercandolo nel buffer e in caso non sia presente, caricandolo dalla
+	 * memoria ({@link #data}). Questo metodo è la scorciatoia per ricavare un
+	 * chunk nel dizionario in DictionaryManager.
+	 * 
+	 * @param word
+	 *            parola del chunk da restituire
+	 * @return ritorna null se il chunk non è presente
+	 */
+	private Chunk getChunk(String word) {
+		Chunk buffered = this.buffer().get(word);
+		if (buffered != null) {
+			return buffered;
+		} else {
+			return data.getChunkBySpecificWord(word);
+		}
+	}
+
+	/**
+	 * Metodo privato che restituisce il buffer del thread corrente, svuotato
+	 * se nel frattempo è stato chiamato {@link #clearBuffers()}
+	 */
+	private Map<String, Chunk> buffer() {
+		ChunkBuffer current = buffers.get();
+		int generation = bufferGeneration.get();
+		if (current.generation != generation) {
+			current.clear();
+			current.generation = generation;
+		}
+		return current;
+	}
+
+	/**
+	 * Metodo privato che svuota i buffer di tutti i thread, da chiamare quando
+	 * i chunk in memoria possono essere stati sostituiti
+	 */
+	private void clearBuffers() {
+		bufferGeneration.incrementAndGet();
+	}
+
+	/**
+	 * Buffer dei chunk trovati da un thread, con la generazione di
+	 * {@link DictionaryManager#bufferGeneration} a cui è aggiornato
+	 */
+	private static final class ChunkBuffer extends HashMap<String, Chunk> {
+		private static final long serialVersionUID = 1L;
+		int generation;
+	}
+
+	/**
+	 * Metodo che cambia la modalità del dizionario, facendo il salvataggio a
+	 * seconda del caso specifico.
+	 * 
+	 * @param mode
+	 *            nuova modalità da impostare
+	 * @return si ritorna True se il cambio è avvenuto con successo, False se la
+	 *         modalità era già fissata sul valore passato o il valore non era
+	 *         valido.
+	 * @throws IOException
+	 *             viene lanciata l'eccezione in caso il salvataggio provochi
+	 *             dei problemi
+	 */
+	public boolean changeMode(int _mode) throws IOException {
+		// ora si imposta la modalità
+		if (_mode == OFFLINE_MODE || _mode == ONLINE_MODE) {
+			if (_mode == this.mode) {
+				// si ritorna
+				return false;
+			} else {
+				// si salva
+				this.saveDictionary();
+				if (_mode == OFFLINE_MODE) {
+					// il refresh automatico è solo per la modalità online
+					this.stopAutoRefresh();
+				}
+				// si imposta
+				this.mode = _mode;
+				return true;
+			}
+		} else {
+			return false;
+		}
+	}
+
+	/**
+	 * Metodo che imposta il formato con cui {@link #saveDictionary()} scrive
+	 * il file dizionario.
+	 * 
+	 * @param compact
+	 *            se True il file viene scritto senza indentazione e a capo
+	 */
+	public void setCompactFormat(boolean compact) {
+		this.compactFormat = compact;
+	}
+
+	/**
+	 * Metodo che imposta il formato del file dizionario, utilizzato dal
+	 * prossimo {@link #saveDictionary()}. In questo modo un dizionario XML può
+	 * essere salvato nel formato binario e viceversa.
+	 * 
+	 * @param format
+	 *            {@link DictionaryData#XML_FORMAT} o
+	 *            {@link DictionaryData#BINARY_FORMAT}
+	 * @return ritorna False se il formato non è valido
+	 */
+	public boolean setFormat(int format) {
+		return data.setFormat(format);
+	}
+
+	/**
+	 * Metodo che restituisce il formato del file dizionario
+	 * 
+	 * @return {@link DictionaryData#XML_FORMAT} o
+	 *         {@link DictionaryData#BINARY_FORMAT}
+	 */
+	public int getFormat() {
+		return data.getFormat();
+	}
+
+	/**
+	 * Metodo che imposta quando i salvataggi del dizionario vengono forzati su
+	 * disco. Vedere
+	 * {@link com.valsecchi.ChunksManager.DictionaryData#setSyncPolicy(int)}.
+	 * 
+	 * @param policy
+	 *            {@link DictionaryData#SYNC_ALWAYS},
+	 *            {@link DictionaryData#SYNC_ON_CLOSE} o
+	 *            {@link DictionaryData#SYNC_NEVER}
+	 * @return ritorna False se la politica non è valida
+	 */
+	public boolean setSyncPolicy(int policy) {
+		if (data.setSyncPolicy(policy)) {
+			this.syncPolicy = policy;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Metodo che imposta la lunghezza degli n-grammi dell'indice utilizzato
+	 * dalla ricerca per pattern. Vedere
+	 * {@link com.valsecchi.ChunksManager.DictionaryData#setNGramLength(int)}.
+	 * 
+	 * @param length
+	 *            lunghezza degli n-grammi, deve essere maggiore di zero
+	 * @throws IllegalArgumentException
+	 *             se la lunghezza non è valida
+	 */
+	public void setNGramLength(int length) {
+		data.setNGramLength(length);
+		this.ngramLength = length;
+	}
+
+	/**
+	 * Metodo che esponde il {@link #mode} corrente del dictionary manager
+	 * 
+	 * @return
+	 */
+	public int getMode() {
+		return this.mode;
+	}
+
+	/**
+	 * Metodo che restituisce il nome del dizionario rappresentato da questo
+	 * oggetto DictionaryManager
+	 */
+	public String getDictionaryName() {
+		return this.dictName;
+	}
+
+	/**
+	 * Metodo che compara due liste di definizioni per determinare quelle da
+	 * eliminare in old
+	 * 
+	 * @param current
+	 *            lista di definizioni nuove, (come stringhe)
+	 * @param old
+	 *            lista di definizioni vecchie da confrontare
+	 * @return ritorna la lista di definizioni da eliminare
+	 */
+	private List<Definition> compareDefinitionToDelete(List<String> current,
+			List<Definition> old) {
+		List<Definition> todelete = new ArrayList<>();
+		Set<String> texts = new HashSet<>(current);
+		for (Definition d : old) {
+			if (texts.contains(d.getText()) == false) {
+				todelete.add(d);
+			}
+		}
+		return todelete;
+	}
+
+	/**
+	 * Metodo che mostra se il dizionario è caricato o no.
+	 * 
+	 * @return ritorna True se il dizionario è caricato in memoria
+	 */
+	public boolean isLoaded() {
+		return data.isDictionaryLoaded();
+	}
+
+	/**
+	 * Metodo che crea un nuovo dizionario.
+	 * 
+	 * @param _path
+	 *            percorso in cui verrà salvato il nuovo dizionario.
+	 * @return ritorna true se le operazioni sono andate a buon fine, false in
+	 *         caso di errore.
+	 */
+	public static boolean CreateDictionary(String _path) {
+		// si scrive un dizionario vuoto
+		try {
+			Path newPath = Paths.get(_path);
+			new DictionaryData(newPath).writeData(newPath);
+		} catch (IOException | InvalidPathException e) {
+			// si ritorna false
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Metodo che converte un dizionario da un formato all'altro. Il formato
+	 * del dizionario di partenza viene riconosciuto automaticamente.
+	 * 
+	 * @param source
+	 *            percorso del dizionario da convertire
+	 * @param target
+	 *            percorso in cui verrà salvato il dizionario convertito
+	 * @param format
+	 *            formato del nuovo dizionario,
+	 *            {@link DictionaryData#XML_FORMAT} o
+	 *            {@link DictionaryData#BINARY_FORMAT}
+	 * @return ritorna true se le operazioni sono andate a buon fine, false in
+	 *         caso di errore.
+	 */
+	public static boolean ConvertDictionary(String source, String target,
+			int format) {
+		try {
+			DictionaryData converted = new DictionaryData(Paths.get(source))
+					.loadData();
+			if (converted == null || converted.setFormat(format) == false) {
+				return false;
+			}
+			converted.writeData(Paths.get(target));
+		} catch (IOException | InvalidPathException e) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Metodo che converte un dizionario XML nel formato binario. Vedere
+	 * {@link #ConvertDictionary(String, String, int)}.
+	 */
+	public static boolean ConvertToBinary(String xmlPath, String binaryPath) {
+		return ConvertDictionary(xmlPath, binaryPath,
+				DictionaryData.BINARY_FORMAT);
+	}
+
+	/**
+	 * Metodo che converte un dizionario binario nel formato XML. Vedere
+	 * {@link #ConvertDictionary(String, String, int)}.
+	 */
+	public static boolean ConvertToXML(String binaryPath, String xmlPath) {
+		return ConvertDictionary(binaryPath, xmlPath, DictionaryData.XML_FORMAT);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.valsecchi.ChunksManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Versione immutabile dei chunk e delle definizioni di un dizionario,
+ * ottenuta con {@link DictionaryData#getSnapshot()}. Le modifiche fatte al
+ * dizionario dopo aver ottenuto la versione non sono visibili, quindi i
+ * metodi possono essere chiamati da qualsiasi thread senza lock e restituiscono
+ * sempre dati coerenti tra loro. Le versioni condividono i dati non
+ * modificati e quelle che nessuno utilizza più vengono liberate dal garbage
+ * collector.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData
+ *
+ */
+public final class DictionarySnapshot {
+
+	private final PersistentHashMap<Chunk> chunks;
+	/**
+	 * Definizioni di ogni hash, nell'ordine di inserimento
+	 */
+	private final PersistentHashMap<Definition[]> definitions;
+	/**
+	 * Formato del file dizionario al momento della versione
+	 */
+	final int format;
+
+	DictionarySnapshot(PersistentHashMap<Chunk> _chunks,
+			PersistentHashMap<Definition[]> _definitions, int _format) {
+		chunks = _chunks;
+		definitions = _definitions;
+		format = _format;
+	}
+
+	/**
+	 * Vedere {@link DictionaryData#getChunk(String)}
+	 */
+	public Chunk getChunk(String hash) {
+		return chunks.get(hash);
+	}
+
+	public boolean chunkExist(String hash) {
+		return chunks.get(hash) != null;
+	}
+
+	/**
+	 * Vedere {@link DictionaryData#getDefinitions(String)}
+	 */
+	public List<Definition> getDefinitions(String hash) {
+		Definition[] defs = definitions.get(hash);
+		return defs == null ? null : new ArrayList<>(Arrays.asList(defs));
+	}
+
+	public List<Chunk> getAllChunks() {
+		return new ArrayList<>(chunks.values());
+	}
+
+	/**
+	 * Numero di chunk della versione
+	 */
+	public int size() {
+		return chunks.size();
+	}
+
+	/**
+	 * Metodo che restituisce la vista di tutti i chunk, senza copiarli.
+	 * Utilizzato per la scrittura del file dizionario.
+	 */
+	Collection<Chunk> chunks() {
+		return chunks.values();
+	}
+
+	/**
+	 * Metodo che restituisce la vista delle definizioni di un hash, senza
+	 * copiarle, null se non ci sono definizioni per questo hash. Utilizzato
+	 * per la scrittura del file dizionario.
+	 */
+	Collection<Definition> definitions(String hash) {
+		Definition[] defs = definitions.get(hash);
+		return defs == null ? null : Arrays.asList(defs);
+	}
+
+	PersistentHashMap<Chunk> chunksMap() {
+		return chunks;
+	}
+
+	PersistentHashMap<Definition[]> definitionsMap() {
+		return definitions;
+	}
+}
@@ -0,0 +1,208 @@
+package com.valsecchi.ChunksManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread che osserva con un {@link WatchService} la cartella del file
+ * dizionario e aggiorna i dati con {@link DictionaryData#refreshData()} quando
+ * un altro processo salva il dizionario. Ogni salvataggio modifica il file
+ * .lock, che contiene la versione del dizionario (vedere
+ * {@link DictionaryLock}), oltre al file dizionario o al giornale, quindi
+ * vengono osservati tutti e tre i file.
+ * <p>
+ * Un salvataggio genera più eventi, e più salvataggi ravvicinati ne generano
+ * molti: il refresh viene eseguito solo quando non arrivano eventi per il
+ * tempo di attesa indicato, o al massimo dopo {@link #MAX_DELAY_FACTOR} volte
+ * quel tempo se gli eventi continuano. Il file viene letto e confrontato in
+ * questo thread, quindi le ricerche non attendono la lettura; i salvataggi
+ * fatti da questo processo cambiano la versione già letta e non causano una
+ * nuova lettura.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryManager#startAutoRefresh(long)
+ *
+ */
+final class DictionaryWatcher implements Closeable {
+
+	/**
+	 * Numero di volte il tempo di attesa dopo cui il refresh viene eseguito
+	 * anche se continuano ad arrivare eventi
+	 */
+	static final int MAX_DELAY_FACTOR = 10;
+
+	private final DictionaryData data;
+	private final WatchService service;
+	private final Thread thread;
+	/**
+	 * Nomi dei file osservati nella cartella del dizionario
+	 */
+	private final Path dictName;
+	private final Path journalName;
+	private final Path lockName;
+	private final long delay;
+	/**
+	 * Millisecondi tra il primo evento e la fine dell'ultimo refresh che ha
+	 * riletto il file, -1 se non c'è ancora stato
+	 */
+	private volatile long lastLatency = -1;
+	/**
+	 * Numero di refresh che hanno riletto il file
+	 */
+	private volatile int refreshCount = 0;
+	/**
+	 * Errore dell'ultimo refresh, null se è andato a buon fine
+	 */
+	private volatile Exception lastError;
+
+	/**
+	 * Costruttore che avvia il thread
+	 *
+	 * @param _data
+	 *            dati da aggiornare
+	 * @param dictPath
+	 *            percorso del file dizionario
+	 * @param _delay
+	 *            millisecondi senza eventi prima del refresh
+	 * @throws IOException
+	 *             se non è possibile osservare la cartella del dizionario
+	 */
+	DictionaryWatcher(DictionaryData _data, Path dictPath, long _delay)
+			throws IOException {
+		if (_delay < 0) {
+			throw new IllegalArgumentException("negative delay: " + _delay);
+		}
+		data = _data;
+		delay = _delay;
+		Path path = dictPath.toAbsolutePath().normalize();
+		dictName = path.getFileName();
+		journalName = dictName.resolveSibling(dictName + ".journal");
+		lockName = dictName.resolveSibling(dictName + ".lock");
+		service = path.getFileSystem().newWatchService();
+		try {
+			path.getParent().register(service,
+					StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY);
+		} catch (IOException | RuntimeException e) {
+			service.close();
+			throw e;
+		}
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				DictionaryWatcher.this.watch();
+			}
+		}, "DictionaryWatcher-" + dictName);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Ciclo del thread: attende il primo evento sui file del dizionario, poi
+	 * la fine della serie di eventi, e infine esegue il refresh
+	 */
+	private void watch() {
+		try {
+			while (true) {
+				WatchKey key = service.take();
+				if (this.concernsDictionary(key) == false) {
+					continue;
+				}
+				long first = System.nanoTime();
+				long deadline = first
+						+ TimeUnit.MILLISECONDS.toNanos(delay * MAX_DELAY_FACTOR);
+				// si attende che i salvataggi in corso finiscano
+				while (System.nanoTime() < deadline) {
+					key = service.poll(delay, TimeUnit.MILLISECONDS);
+					if (key == null) {
+						break;
+					}
+					this.concernsDictionary(key);
+				}
+				try {
+					if (data.refreshData()) {
+						lastLatency = TimeUnit.NANOSECONDS.toMillis(System
+								.nanoTime() - first);
+						refreshCount += 1;
+					}
+					lastError = null;
+				} catch (IOException | RuntimeException e) {
+					// si riprova al prossimo salvataggio: anche un file
+					// corrotto non deve fermare il thread
+					lastError = e;
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// il watcher è stato chiuso
+		}
+	}
+
+	/**
+	 * Consuma gli eventi della chiave e indica se riguardano i file del
+	 * dizionario
+	 */
+	private boolean concernsDictionary(WatchKey key) {
+		boolean found = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				// alcuni eventi sono stati persi
+				found = true;
+				continue;
+			}
+			Path name = (Path) event.context();
+			if (name.equals(dictName) || name.equals(journalName)
+					|| name.equals(lockName)) {
+				found = true;
+			}
+		}
+		key.reset();
+		return found;
+	}
+
+	/**
+	 * Vedere {@link DictionaryManager#getRefreshLatency()}
+	 */
+	long getLastLatency() {
+		return lastLatency;
+	}
+
+	int getRefreshCount() {
+		return refreshCount;
+	}
+
+	Exception getLastError() {
+		return lastError;
+	}
+
+	/**
+	 * Ferma il thread e attende che termini l'eventuale refresh in corso. Il
+	 * thread non viene interrotto, perché l'interruzione chiuderebbe i canali
+	 * dei file durante la lettura: la chiusura del WatchService lo sveglia.
+	 */
+	@Override
+	public void close() throws IOException {
+		service.close();
+		if (thread != Thread.currentThread()) {
+			boolean interrupted = false;
+			while (thread.isAlive()) {
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,334 @@
+package com.valsecchi.ChunksManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * La classe DictionaryXML gestisce il formato XML del file dizionario. La
+ * lettura avviene in streaming con le api StAX: gli elementi Chunks e
+ * Definitions vengono inseriti direttamente in un oggetto DictionaryData man
+ * mano che vengono letti, senza mai costruire in memoria l'albero completo del
+ * documento. Allo stesso modo la scrittura produce il documento record per
+ * record su uno stream bufferizzato, con memoria costante rispetto alla
+ * dimensione del dizionario.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData
+ *
+ */
+final class DictionaryXML {
+
+	static final String ROOT = "ChunksDictionary";
+	static final String CHUNKS = "Chunks";
+	static final String DEFINITIONS = "Definitions";
+	static final String HASH = "hash";
+	static final String CHUNK = "chunk";
+	static final String TYPE = "type";
+	static final String UNIT = "unit";
+	static final String DEFINITION = "definition";
+
+	/**
+	 * Separatore di riga e indentazione usati nel formato leggibile, gli stessi
+	 * di Format.getPrettyFormat() di jdom2
+	 */
+	private static final String NEW_LINE = "\r\n";
+	private static final String INDENT = "  ";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Factory condivisa: una volta configurata la creazione dei reader è
+	 * thread-safe
+	 */
+	private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+	private DictionaryXML() {
+	}
+
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES,
+				Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+				Boolean.FALSE);
+		return factory;
+	}
+
+	/**
+	 * Metodo che legge il file dizionario in path e inserisce chunks e
+	 * definizioni in data. I chunk vengono inseriti con
+	 * {@link DictionaryData#loadChunk(Chunk)} e le definizioni con
+	 * {@link DictionaryData#loadDefinition(Definition)}, nello stesso ordine
+	 * in cui avveniva costruendo il documento con jdom2.
+	 *
+	 * @param path
+	 *            percorso del file dizionario
+	 * @param data
+	 *            oggetto DictionaryData da riempire
+	 * @throws IOException
+	 *             se ci sono problemi nella lettura del file
+	 * @throws XMLStreamException
+	 *             se il file non è un documento XML valido
+	 */
+	static void read(Path path, DictionaryData data) throws IOException,
+			XMLStreamException {
+		try (InputStream in = new BufferedInputStream(
+				Files.newInputStream(path))) {
+			read(in, data);
+		}
+	}
+
+	/**
+	 * Vedere {@link #read(Path, DictionaryData)}, la differenza è che questo
+	 * metodo legge da uno stream già aperto, che non viene chiuso.
+	 */
+	static void read(InputStream in, DictionaryData data) throws IOException,
+			XMLStreamException {
+		XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(in);
+		try {
+			// profondità corrente: 1 è la radice, 2 i record, 3 i campi
+			int depth = 0;
+			// nome del record corrente (Chunks o Definitions), null se il
+			// record va ignorato
+			String record = null;
+			// campo del record che si sta leggendo, null se il testo va
+			// ignorato
+			String field = null;
+			StringBuilder text = new StringBuilder();
+			String hash = null, word = null, type = null, unit = null, definition = null;
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT: {
+					depth += 1;
+					String name = reader.getLocalName();
+					if (depth == 2) {
+						// nuovo record
+						if (CHUNKS.equals(name) || DEFINITIONS.equals(name)) {
+							record = name;
+						} else {
+							record = null;
+						}
+						hash = word = type = unit = definition = null;
+					} else if (depth == 3 && record != null) {
+						// come getChildText() si considera solo il primo
+						// elemento con un certo nome
+						field = null;
+						if (HASH.equals(name) && hash == null
+								|| CHUNK.equals(name) && word == null
+								|| TYPE.equals(name) && type == null
+								|| UNIT.equals(name) && unit == null
+								|| DEFINITION.equals(name) && definition == null) {
+							field = name;
+							text.setLength(0);
+						}
+					}
+					break;
+				}
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE: {
+					// si considera solo il testo diretto del campo
+					if (depth == 3 && field != null) {
+						text.append(reader.getTextCharacters(),
+								reader.getTextStart(), reader.getTextLength());
+					}
+					break;
+				}
+				case XMLStreamConstants.END_ELEMENT: {
+					if (depth == 3 && field != null) {
+						String value = text.toString();
+						switch (field) {
+						case HASH:
+							hash = value;
+							break;
+						case CHUNK:
+							word = value;
+							break;
+						case TYPE:
+							type = value;
+							break;
+						case UNIT:
+							unit = value;
+							break;
+						default:
+							definition = value;
+							break;
+						}
+						field = null;
+					} else if (depth == 2 && record != null) {
+						// il record è completo e si aggiunge ai dati
+						if (CHUNKS.equals(record)) {
+							data.loadChunk(new Chunk(word, hash, type, unit));
+						} else {
+							data.loadDefinition(new Definition(hash, definition));
+						}
+						record = null;
+					}
+					depth -= 1;
+					break;
+				}
+				default:
+					break;
+				}
+			}
+		} catch (XMLStreamException e) {
+			// gli errori di lettura vengono rilanciati come IOException
+			if (e.getNestedException() instanceof IOException) {
+				throw (IOException) e.getNestedException();
+			}
+			throw e;
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Metodo che scrive in out tutti i chunk e le definizioni di data. Prima
+	 * vengono scritti tutti gli elementi Chunks e poi gli elementi Definitions
+	 * raggruppati per chunk, nello stesso ordine del documento costruito con
+	 * jdom2. Lo stream viene bufferizzato internamente e svuotato al termine,
+	 * ma non viene chiuso.
+	 * 
+	 * @param data
+	 *            versione dei dati da scrivere
+	 * @param out
+	 *            stream su cui scrivere il documento
+	 * @param compact
+	 *            se True il documento viene scritto senza indentazione e a
+	 *            capo, se False nel formato leggibile
+	 * @throws IOException
+	 *             se ci sono problemi nella scrittura
+	 */
+	static void write(DictionarySnapshot data, OutputStream out,
+			boolean compact) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out,
+				StandardCharsets.UTF_8), BUFFER_SIZE);
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+		writer.write(NEW_LINE);
+		if (data.chunks().isEmpty()) {
+			writer.write("<" + ROOT + " />");
+		} else {
+			writer.write("<" + ROOT + ">");
+			// ciclo per i chunk
+			for (Chunk c : data.chunks()) {
+				startRecord(writer, CHUNKS, compact);
+				writeField(writer, HASH, c.getHash(), compact);
+				writeField(writer, CHUNK, c.getWord(), compact);
+				writeField(writer, TYPE, c.getType(), compact);
+				writeField(writer, UNIT, c.getUnit(), compact);
+				endRecord(writer, CHUNKS, compact);
+			}
+			// ciclo per le definizioni
+			for (Chunk c : data.chunks()) {
+				Collection<Definition> defs = data.definitions(c.getHash());
+				if (defs == null) {
+					continue;
+				}
+				for (Definition d : defs) {
+					startRecord(writer, DEFINITIONS, compact);
+					writeField(writer, HASH, d.getHash(), compact);
+					writeField(writer, DEFINITION, d.getText(), compact);
+					endRecord(writer, DEFINITIONS, compact);
+				}
+			}
+			if (!compact) {
+				writer.write(NEW_LINE);
+			}
+			writer.write("</" + ROOT + ">");
+		}
+		writer.write(NEW_LINE);
+		writer.flush();
+	}
+
+	private static void startRecord(Writer writer, String name,
+			boolean compact) throws IOException {
+		if (!compact) {
+			writer.write(NEW_LINE);
+			writer.write(INDENT);
+		}
+		writer.write("<" + name + ">");
+	}
+
+	private static void endRecord(Writer writer, String name, boolean compact)
+			throws IOException {
+		if (!compact) {
+			writer.write(NEW_LINE);
+			writer.write(INDENT);
+		}
+		writer.write("</" + name + ">");
+	}
+
+	private static void writeField(Writer writer, String name, String value,
+			boolean compact) throws IOException {
+		if (!compact) {
+			writer.write(NEW_LINE);
+			writer.write(INDENT);
+			writer.write(INDENT);
+		}
+		if (value == null || value.isEmpty()) {
+			writer.write("<" + name + " />");
+		} else {
+			writer.write("<" + name + ">");
+			writeEscaped(writer, value);
+			writer.write("</" + name + ">");
+		}
+	}
+
+	/**
+	 * Scrive il testo sostituendo i caratteri speciali dell'XML. Il carattere
+	 * \r viene scritto come riferimento per non essere normalizzato in
+	 * lettura, mentre i caratteri di controllo non ammessi da XML 1.0 vengono
+	 * scartati perchè renderebbero il file illeggibile.
+	 */
+	private static void writeEscaped(Writer writer, String value)
+			throws IOException {
+		int start = 0;
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			String replacement;
+			switch (c) {
+			case '&':
+				replacement = "&amp;";
+				break;
+			case '<':
+				replacement = "&lt;";
+				break;
+			case '>':
+				replacement = "&gt;";
+				break;
+			case '\r':
+				replacement = "&#xD;";
+				break;
+			case '\t':
+			case '\n':
+				continue;
+			default:
+				if (c >= 0x20 && c != 0xFFFE && c != 0xFFFF) {
+					continue;
+				}
+				replacement = "";
+				break;
+			}
+			writer.write(value, start, i - start);
+			writer.write(replacement);
+			start = i + 1;
+		}
+		writer.write(value, start, length - start);
+	}
+}
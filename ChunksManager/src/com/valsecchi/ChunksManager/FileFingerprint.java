@@ -0,0 +1,156 @@
+package com.valsecchi.ChunksManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32;
+
+/**
+ * Impronta di un file: dimensione, data di modifica e CRC32 del contenuto.
+ * Viene utilizzata da {@link DictionaryData#refreshData()} per non rileggere
+ * il file dizionario e il giornale se non sono cambiati, anche quando sono
+ * stati modificati da programmi che non aggiornano la versione in
+ * {@link DictionaryLock}.
+ * <p>
+ * Il confronto di dimensione e data di modifica non richiede di leggere il
+ * file, ma non basta se il file è stato modificato poco prima dell'impronta:
+ * una seconda modifica nello stesso intervallo di tempo potrebbe lasciare la
+ * stessa data. In quel caso, o se la data è cambiata, si confronta il CRC32.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData#refreshData()
+ *
+ */
+final class FileFingerprint {
+
+	/**
+	 * Millisecondi dopo la modifica del file entro cui la data di modifica
+	 * non è considerata affidabile
+	 */
+	private static final long RACY_MILLIS = 2000;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Dimensione del file, -1 se il file non esiste
+	 */
+	private final long size;
+	private final long modified;
+	private final long checksum;
+	/**
+	 * Indica se la data di modifica basta a riconoscere il file
+	 */
+	private final boolean stable;
+
+	private FileFingerprint(long _size, long _modified, long _checksum,
+			boolean _stable) {
+		size = _size;
+		modified = _modified;
+		checksum = _checksum;
+		stable = _stable;
+	}
+
+	/**
+	 * Metodo che calcola l'impronta del file, leggendolo per intero. Quando
+	 * il file viene comunque letto o scritto conviene calcolare il CRC32
+	 * durante l'operazione, vedere {@link #of(Path, long, long)}.
+	 *
+	 * @param path
+	 *            percorso del file, che può non esistere
+	 * @return l'impronta del file
+	 * @throws IOException
+	 *             se non è possibile leggere il file
+	 */
+	static FileFingerprint of(Path path) throws IOException {
+		long now = System.currentTimeMillis();
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		} catch (NoSuchFileException e) {
+			return new FileFingerprint(-1, 0, 0, true);
+		}
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream in = Files.newInputStream(path)) {
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				crc.update(buffer, 0, read);
+			}
+		}
+		long modified = attributes.lastModifiedTime().toMillis();
+		return new FileFingerprint(attributes.size(), modified,
+				crc.getValue(), modified < now - RACY_MILLIS);
+	}
+
+	/**
+	 * Metodo che calcola l'impronta del file con il CRC32 calcolato durante
+	 * la lettura o la scrittura del file, senza rileggerlo. Se la dimensione
+	 * del file non corrisponde ai byte letti o scritti il file è stato
+	 * modificato nel frattempo e viene letto per intero.
+	 *
+	 * @param path
+	 *            percorso del file, che può non esistere
+	 * @param length
+	 *            numero di byte letti o scritti
+	 * @param checksum
+	 *            CRC32 dei byte letti o scritti
+	 * @return l'impronta del file
+	 * @throws IOException
+	 *             se non è possibile leggere gli attributi del file
+	 */
+	static FileFingerprint of(Path path, long length, long checksum)
+			throws IOException {
+		long now = System.currentTimeMillis();
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		} catch (NoSuchFileException e) {
+			return new FileFingerprint(-1, 0, 0, true);
+		}
+		if (attributes.size() != length) {
+			return of(path);
+		}
+		long modified = attributes.lastModifiedTime().toMillis();
+		return new FileFingerprint(length, modified, checksum, modified < now
+				- RACY_MILLIS);
+	}
+
+	/**
+	 * Metodo che indica se il file ha ancora dimensione e data di modifica
+	 * dell'impronta, che è abbastanza vecchia da essere affidabile. Se
+	 * restituisce False il file può comunque avere lo stesso contenuto,
+	 * vedere {@link #sameContent(FileFingerprint)}.
+	 *
+	 * @param path
+	 *            percorso del file
+	 * @return True se il file non è cambiato
+	 * @throws IOException
+	 *             se non è possibile leggere gli attributi del file
+	 */
+	boolean unchanged(Path path) throws IOException {
+		if (stable == false) {
+			return false;
+		}
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		} catch (NoSuchFileException e) {
+			return size == -1;
+		}
+		return attributes.size() == size
+				&& attributes.lastModifiedTime().toMillis() == modified;
+	}
+
+	/**
+	 * Metodo che indica se l'impronta corrisponde allo stesso contenuto di
+	 * other
+	 */
+	boolean sameContent(FileFingerprint other) {
+		return other != null && other.size == size
+				&& other.checksum == checksum;
+	}
+}
@@ -0,0 +1,74 @@
+package com.valsecchi.ChunksManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Problema rilevato da {@link DictionaryData#verifyHashes()} sugli hash dei
+ * chunk di un dizionario.
+ * 
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData#verifyHashes()
+ * 
+ */
+public final class HashConflict {
+
+	/**
+	 * Parole diverse con lo stesso hash. Le collisioni risolte con un hash
+	 * alternativo non sono un errore, ma vengono segnalate per conoscerne la
+	 * frequenza.
+	 */
+	public static final int COLLISION = 0;
+	/**
+	 * La stessa parola è memorizzata in più chunk
+	 */
+	public static final int DUPLICATE = 1;
+	/**
+	 * L'hash memorizzato non corrisponde alla parola né a un suo hash
+	 * alternativo
+	 */
+	public static final int MISMATCH = 2;
+
+	private final int kind;
+	private final String hash;
+	private final List<String> words;
+
+	HashConflict(int _kind, String _hash, List<String> _words) {
+		kind = _kind;
+		hash = _hash;
+		words = Collections.unmodifiableList(new ArrayList<>(_words));
+	}
+
+	/**
+	 * Tipo del problema: {@link #COLLISION}, {@link #DUPLICATE} o
+	 * {@link #MISMATCH}
+	 */
+	public int getKind() {
+		return kind;
+	}
+
+	/**
+	 * Hash calcolato dalle parole per {@link #COLLISION} e {@link #DUPLICATE},
+	 * hash memorizzato nel chunk per {@link #MISMATCH}
+	 */
+	public String getHash() {
+		return hash;
+	}
+
+	/**
+	 * Parole dei chunk coinvolti
+	 */
+	public List<String> getWords() {
+		return words;
+	}
+
+	@Override
+	public String toString() {
+		String name = kind == COLLISION ? "collision"
+				: kind == DUPLICATE ? "duplicate" : "mismatch";
+		return name + " " + hash + " " + words;
+	}
+}
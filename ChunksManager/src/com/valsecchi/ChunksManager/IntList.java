@@ -0,0 +1,126 @@
+package com.valsecchi.ChunksManager;
+
+import java.util.Arrays;
+
+/**
+ * Lista di interi primitivi ordinata in modo crescente e senza duplicati,
+ * utilizzata dagli indici per memorizzare gli id dei chunk senza creare un
+ * oggetto Integer per ogni elemento.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ *
+ */
+final class IntList {
+
+	private int[] values;
+	private int size;
+
+	IntList() {
+		values = new int[4];
+	}
+
+	IntList(int capacity) {
+		values = new int[Math.max(capacity, 4)];
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int get(int index) {
+		return values[index];
+	}
+
+	/**
+	 * Aggiunge un valore mantenendo l'ordine. Gli id nuovi sono sempre i più
+	 * grandi, quindi nel caso comune il valore viene aggiunto in coda.
+	 *
+	 * @return False se il valore era già presente
+	 */
+	boolean add(int value) {
+		if (size == 0 || values[size - 1] < value) {
+			grow();
+			values[size++] = value;
+			return true;
+		}
+		int pos = Arrays.binarySearch(values, 0, size, value);
+		if (pos >= 0) {
+			return false;
+		}
+		pos = -pos - 1;
+		grow();
+		System.arraycopy(values, pos, values, pos + 1, size - pos);
+		values[pos] = value;
+		size += 1;
+		return true;
+	}
+
+	/**
+	 * Rimuove un valore se presente
+	 *
+	 * @return True se il valore è stato rimosso
+	 */
+	boolean remove(int value) {
+		int pos = Arrays.binarySearch(values, 0, size, value);
+		if (pos < 0) {
+			return false;
+		}
+		System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+		size -= 1;
+		return true;
+	}
+
+	/**
+	 * Restituisce la posizione del primo valore maggiore o uguale a value,
+	 * size() se non ce ne sono
+	 */
+	int ceilingIndex(int value) {
+		int pos = Arrays.binarySearch(values, 0, size, value);
+		return pos >= 0 ? pos : -pos - 1;
+	}
+
+	boolean contains(int value) {
+		return Arrays.binarySearch(values, 0, size, value) >= 0;
+	}
+
+	IntList copy() {
+		IntList result = new IntList(size);
+		System.arraycopy(values, 0, result.values, 0, size);
+		result.size = size;
+		return result;
+	}
+
+	/**
+	 * Restituisce gli elementi presenti sia in questa lista che in other. Si
+	 * scorre la lista più corta cercando gli elementi nell'altra.
+	 */
+	IntList intersect(IntList other) {
+		IntList small = this.size <= other.size ? this : other;
+		IntList large = small == this ? other : this;
+		IntList result = new IntList(small.size);
+		int from = 0;
+		for (int i = 0; i < small.size && from < large.size; i++) {
+			int pos = Arrays.binarySearch(large.values, from, large.size,
+					small.values[i]);
+			if (pos >= 0) {
+				result.values[result.size++] = small.values[i];
+				from = pos + 1;
+			} else {
+				from = -pos - 1;
+			}
+		}
+		return result;
+	}
+
+	private void grow() {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, values.length * 2);
+		}
+	}
+}
@@ -0,0 +1,322 @@
+package com.valsecchi.ChunksManager;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mappa indicizzata con l'hash dei chunk. Un hash valido è formato da 12
+ * caratteri esadecimali, cioè 48 bit, e viene memorizzato come long in una
+ * tabella ad indirizzamento aperto, senza creare un oggetto per ogni elemento
+ * e senza confrontare stringhe. I metodi accettano l'hash come String, come il
+ * resto di DictionaryData, e lo convertono con {@link MD5#toLong(String)}; gli
+ * hash non validi, che possono trovarsi solo in file dizionario modificati a
+ * mano, vengono memorizzati in una normale HashMap.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData
+ *
+ */
+final class LongHashMap<V> {
+
+	/**
+	 * Valore delle celle vuote, non è mai un hash valido
+	 */
+	private static final long EMPTY = -1;
+	private static final int MIN_CAPACITY = 16;
+	private static final double LOAD_FACTOR = 0.75;
+
+	private long[] keys;
+	private Object[] values;
+	private int size;
+	/**
+	 * 64 meno il logaritmo della capacità, per ricavare la cella dai bit alti
+	 * del prodotto dell'hash
+	 */
+	private int shift;
+	private int threshold;
+	/**
+	 * Valore casuale diverso per ogni mappa, combinato con le chiavi prima di
+	 * calcolare la cella. Senza di esso, inserire gli elementi nell'ordine in
+	 * cui si trovano in un'altra mappa (ad esempio caricando un file scritto
+	 * scorrendo la mappa) li concentrerebbe in poche sequenze contigue.
+	 */
+	private final long seed = ThreadLocalRandom.current().nextLong();
+	/**
+	 * Elementi con un hash non valido
+	 */
+	private final Map<String, V> others = new HashMap<>();
+
+	LongHashMap() {
+		allocate(MIN_CAPACITY);
+	}
+
+	int size() {
+		return size + others.size();
+	}
+
+	boolean isEmpty() {
+		return size() == 0;
+	}
+
+	V get(String hash) {
+		long key = MD5.toLong(hash);
+		return key < 0 ? others.get(hash) : get(key);
+	}
+
+	boolean containsKey(String hash) {
+		long key = MD5.toLong(hash);
+		return key < 0 ? others.containsKey(hash) : indexOf(key) >= 0;
+	}
+
+	/**
+	 * Associa value all'hash
+	 *
+	 * @return il valore associato in precedenza, null se non c'era
+	 */
+	V put(String hash, V value) {
+		long key = MD5.toLong(hash);
+		return key < 0 ? others.put(hash, value) : put(key, value);
+	}
+
+	/**
+	 * Rimuove l'hash dalla mappa
+	 *
+	 * @return il valore rimosso, null se l'hash non era presente
+	 */
+	V remove(String hash) {
+		long key = MD5.toLong(hash);
+		return key < 0 ? others.remove(hash) : remove(key);
+	}
+
+	void clear() {
+		allocate(MIN_CAPACITY);
+		size = 0;
+		others.clear();
+	}
+
+	@SuppressWarnings("unchecked")
+	V get(long key) {
+		int index = indexOf(key);
+		return index < 0 ? null : (V) values[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	V put(long key, V value) {
+		int index = slot(key);
+		while (keys[index] != EMPTY) {
+			if (keys[index] == key) {
+				V old = (V) values[index];
+				values[index] = value;
+				return old;
+			}
+			index = (index + 1) & (keys.length - 1);
+		}
+		keys[index] = key;
+		values[index] = value;
+		size += 1;
+		if (size > threshold) {
+			resize(keys.length * 2);
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	V remove(long key) {
+		int index = indexOf(key);
+		if (index < 0) {
+			return null;
+		}
+		V old = (V) values[index];
+		// si spostano indietro gli elementi successivi della stessa sequenza,
+		// così non servono celle marcate come eliminate
+		int mask = keys.length - 1;
+		int hole = index;
+		int next = (hole + 1) & mask;
+		while (keys[next] != EMPTY) {
+			int home = slot(keys[next]);
+			// l'elemento può occupare il buco se la sua cella naturale non
+			// si trova tra il buco e la sua posizione attuale
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				values[hole] = values[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[hole] = EMPTY;
+		values[hole] = null;
+		size -= 1;
+		return old;
+	}
+
+	/**
+	 * Restituisce la vista dei valori della mappa, senza copiarli. La vista
+	 * non va utilizzata mentre la mappa viene modificata.
+	 */
+	Collection<V> values() {
+		return new AbstractCollection<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new ValuesIterator();
+			}
+
+			@Override
+			public int size() {
+				return LongHashMap.this.size();
+			}
+		};
+	}
+
+	/**
+	 * Restituisce la vista degli hash della mappa, nello stesso ordine di
+	 * {@link #values()}. Gli hash validi vengono ricostruiti con
+	 * {@link MD5#toHash(long)}; la vista non va utilizzata mentre la mappa
+	 * viene modificata.
+	 */
+	Collection<String> keys() {
+		return new AbstractCollection<String>() {
+			@Override
+			public Iterator<String> iterator() {
+				return new KeysIterator();
+			}
+
+			@Override
+			public int size() {
+				return LongHashMap.this.size();
+			}
+		};
+	}
+
+	private int indexOf(long key) {
+		int index = slot(key);
+		while (keys[index] != EMPTY) {
+			if (keys[index] == key) {
+				return index;
+			}
+			index = (index + 1) & (keys.length - 1);
+		}
+		return -1;
+	}
+
+	/**
+	 * Cella naturale di una chiave, presa dai bit alti del prodotto
+	 */
+	private int slot(long key) {
+		return (int) (((key ^ seed) * 0x9E3779B97F4A7C15L) >>> shift);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		values = new Object[capacity];
+		shift = 64 - Integer.numberOfTrailingZeros(capacity);
+		threshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				put(oldKeys[i], (V) oldValues[i]);
+			}
+		}
+	}
+
+	/**
+	 * Scorre prima la tabella e poi gli elementi con hash non validi
+	 */
+	private abstract class TableIterator<T> implements Iterator<T> {
+
+		private int index = 0;
+		private Iterator<T> othersIterator = null;
+
+		TableIterator() {
+			skipEmpty();
+		}
+
+		/**
+		 * Elemento corrispondente alla cella della tabella
+		 */
+		abstract T fromTable(int index);
+
+		/**
+		 * Iteratore degli elementi con hash non validi
+		 */
+		abstract Iterator<T> fromOthers();
+
+		private void skipEmpty() {
+			while (index < keys.length && keys[index] == EMPTY) {
+				index += 1;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (index < keys.length) {
+				return true;
+			}
+			if (othersIterator == null) {
+				othersIterator = fromOthers();
+			}
+			return othersIterator.hasNext();
+		}
+
+		@Override
+		public T next() {
+			if (hasNext() == false) {
+				throw new NoSuchElementException();
+			}
+			if (index < keys.length) {
+				T value = fromTable(index);
+				index += 1;
+				skipEmpty();
+				return value;
+			}
+			return othersIterator.next();
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private final class ValuesIterator extends TableIterator<V> {
+
+		@SuppressWarnings("unchecked")
+		@Override
+		V fromTable(int index) {
+			return (V) values[index];
+		}
+
+		@Override
+		Iterator<V> fromOthers() {
+			return others.values().iterator();
+		}
+	}
+
+	private final class KeysIterator extends TableIterator<String> {
+
+		@Override
+		String fromTable(int index) {
+			return MD5.toHash(keys[index]);
+		}
+
+		@Override
+		Iterator<String> fromOthers() {
+			return others.keySet().iterator();
+		}
+	}
+}
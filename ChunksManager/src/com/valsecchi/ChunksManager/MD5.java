@@ -1,33 +1,231 @@
-package com.valsecchi.ChunksManager;
-
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.nio.charset.*;
-
-public class MD5 {
-
-	public static String GetHash(String stringa) {
-
-		MessageDigest md;
-		try {
-			md = MessageDigest.getInstance("MD5");
-		} catch (NoSuchAlgorithmException e) {
-			return null;
-		}
-		if (Charset.isSupported("CP1252"))
-
-			md.update(stringa.getBytes(Charset.forName("CP1252")));
-		else
-			md.update(stringa.getBytes(Charset.forName("ISO-8859-1")));
-
-		byte[] bytes = md.digest();
-		StringBuilder str = new StringBuilder();
-		for (int i = 0; i < bytes.length; i++)
-
-			str.append(Integer.toHexString((bytes[i] & 0xFF) | 0x100)
-					.substring(1, 3));
-
-		return (str.toString().substring(0, 6)
-				+ str.toString().substring(str.length() - 7, str.length()-1)).toUpperCase();
-	}
-}
+package com.valsecchi.ChunksManager;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Classe che calcola l'hash dei chunk: i primi 6 e i caratteri dal 26° al 31°
+ * dell'MD5 esadecimale della parola codificata in CP1252 (ISO-8859-1 se
+ * CP1252 non è disponibile). Ogni thread utilizza un proprio MessageDigest e
+ * propri buffer, creati alla prima chiamata e poi riutilizzati, quindi il
+ * calcolo è thread-safe e non crea oggetti oltre alla stringa risultato.
+ * 
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.Chunk
+ * 
+ */
+public class MD5 {
+
+	/**
+	 * Codifica delle parole, verificata una sola volta
+	 */
+	private static final Charset CHARSET = Charset.isSupported("CP1252") ? Charset
+			.forName("CP1252") : StandardCharsets.ISO_8859_1;
+
+	private static final ThreadLocal<Engine> ENGINE = new ThreadLocal<Engine>() {
+		@Override
+		protected Engine initialValue() {
+			return new Engine();
+		}
+	};
+
+	public static String GetHash(String stringa) {
+		return ENGINE.get().hash(stringa);
+	}
+
+	/**
+	 * Numero massimo di tentativi per risolvere una collisione, vedere
+	 * {@link #GetHash(String, int)}
+	 */
+	public static final int MAX_SALT = 64;
+
+	/**
+	 * Calcola l'hash alternativo di una parola, utilizzato quando l'hash della
+	 * parola è già assegnato a una parola diversa. Il tentativo n è l'hash di
+	 * word#n; il tentativo 0 è l'hash normale.
+	 * 
+	 * @param word
+	 *            parola di cui calcolare l'hash
+	 * @param salt
+	 *            numero del tentativo, da 0 a {@link #MAX_SALT}
+	 * @return l'hash alternativo
+	 */
+	public static String GetHash(String word, int salt) {
+		return salt == 0 ? GetHash(word) : GetHash(word + "#" + salt);
+	}
+
+	/**
+	 * Calcola l'hash di tutte le parole della lista, come
+	 * {@link #GetHash(String)}, utilizzando lo stesso digest e gli stessi
+	 * buffer per tutte.
+	 * 
+	 * @param words
+	 *            parole di cui calcolare l'hash
+	 * @return lista degli hash nello stesso ordine delle parole
+	 */
+	public static List<String> GetHashes(List<String> words) {
+		Engine engine = ENGINE.get();
+		List<String> hashes = new ArrayList<>(words.size());
+		for (String word : words) {
+			hashes.add(engine.hash(word));
+		}
+		return hashes;
+	}
+
+	/**
+	 * Stato del calcolo dell'hash di un thread
+	 */
+	private static final class Engine {
+
+		private final MessageDigest md;
+		private final CharsetEncoder encoder;
+		private ByteBuffer bytes = ByteBuffer.allocate(64);
+		private final byte[] digest = new byte[16];
+		private final char[] chars = new char[HASH_LENGTH];
+
+		Engine() {
+			MessageDigest digester;
+			try {
+				digester = MessageDigest.getInstance("MD5");
+			} catch (NoSuchAlgorithmException e) {
+				digester = null;
+			}
+			md = digester;
+			// i caratteri non codificabili diventano '?' come in
+			// String.getBytes()
+			encoder = CHARSET.newEncoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		}
+
+		String hash(String word) {
+			if (md == null) {
+				return null;
+			}
+			int length = encode(word);
+			md.update(bytes.array(), 0, length);
+			try {
+				md.digest(digest, 0, digest.length);
+			} catch (DigestException e) {
+				// non possibile, il buffer è di 16 byte
+				throw new IllegalStateException(e);
+			}
+			// i primi 3 byte, poi dal nibble basso del 13° byte al nibble
+			// alto del 16°
+			for (int i = 0; i < 3; i++) {
+				chars[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+				chars[2 * i + 1] = HEX_DIGITS[digest[i] & 0xF];
+			}
+			chars[6] = HEX_DIGITS[digest[12] & 0xF];
+			chars[7] = HEX_DIGITS[(digest[13] >> 4) & 0xF];
+			chars[8] = HEX_DIGITS[digest[13] & 0xF];
+			chars[9] = HEX_DIGITS[(digest[14] >> 4) & 0xF];
+			chars[10] = HEX_DIGITS[digest[14] & 0xF];
+			chars[11] = HEX_DIGITS[(digest[15] >> 4) & 0xF];
+			return new String(chars);
+		}
+
+		/**
+		 * Codifica la parola nel buffer riutilizzato e restituisce il numero
+		 * di byte. I caratteri ASCII, il caso comune, vengono copiati
+		 * direttamente perchè sono uguali in entrambe le codifiche.
+		 */
+		private int encode(String word) {
+			int length = word.length();
+			int max = (int) Math.ceil(encoder.maxBytesPerChar() * length);
+			if (bytes.capacity() < max) {
+				bytes = ByteBuffer.allocate(Math.max(max, bytes.capacity() * 2));
+			}
+			byte[] array = bytes.array();
+			int i = 0;
+			while (i < length) {
+				char c = word.charAt(i);
+				if (c >= 0x80) {
+					break;
+				}
+				array[i++] = (byte) c;
+			}
+			if (i == length) {
+				return length;
+			}
+			bytes.clear();
+			bytes.position(i);
+			encoder.reset();
+			encoder.encode(CharBuffer.wrap(word, i, length), bytes, true);
+			encoder.flush(bytes);
+			return bytes.position();
+		}
+	}
+
+	/**
+	 * Numero di caratteri esadecimali dell'hash restituito da
+	 * {@link #GetHash(String)}, cioè 48 bit
+	 */
+	public static final int HASH_LENGTH = 12;
+
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+	/**
+	 * Valore di ogni cifra esadecimale maiuscola, -1 per gli altri caratteri
+	 * ASCII
+	 */
+	private static final byte[] HEX_VALUES = new byte[128];
+	static {
+		Arrays.fill(HEX_VALUES, (byte) -1);
+		for (int i = 0; i < HEX_DIGITS.length; i++) {
+			HEX_VALUES[HEX_DIGITS[i]] = (byte) i;
+		}
+	}
+
+	/**
+	 * Converte un hash di 12 caratteri esadecimali maiuscoli nel numero di 48
+	 * bit che rappresenta.
+	 * 
+	 * @param hash
+	 *            hash da convertire
+	 * @return il valore dell'hash, -1 se la stringa non è un hash valido
+	 */
+	public static long toLong(String hash) {
+		if (hash == null || hash.length() != HASH_LENGTH) {
+			return -1;
+		}
+		long value = 0;
+		for (int i = 0; i < HASH_LENGTH; i++) {
+			char c = hash.charAt(i);
+			int digit = c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
+			if (digit < 0) {
+				return -1;
+			}
+			value = (value << 4) | digit;
+		}
+		return value;
+	}
+
+	/**
+	 * Converte un valore di 48 bit nell'hash di 12 caratteri esadecimali
+	 * maiuscoli, l'operazione inversa di {@link #toLong(String)}.
+	 * 
+	 * @param value
+	 *            valore dell'hash
+	 * @return l'hash come stringa
+	 */
+	public static String toHash(long value) {
+		char[] chars = new char[HASH_LENGTH];
+		for (int i = HASH_LENGTH - 1; i >= 0; i--) {
+			chars[i] = HEX_DIGITS[(int) (value & 0xF)];
+			value >>>= 4;
+		}
+		return new String(chars);
+	}
+}
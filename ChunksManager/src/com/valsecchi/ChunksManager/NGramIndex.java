@@ -0,0 +1,164 @@
+package com.valsecchi.ChunksManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indice invertito degli n-grammi delle parole dei chunk. Per ogni sequenza
+ * di n caratteri consecutivi l'indice memorizza la lista ordinata degli id dei
+ * chunk la cui parola la contiene. Una parola che contiene un pattern
+ * contiene anche tutti i suoi n-grammi, quindi intersecando le liste degli
+ * n-grammi del pattern si ottengono i soli candidati da verificare con
+ * String.contains().
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData#getChunksByWord(String)
+ *
+ */
+final class NGramIndex {
+
+	/**
+	 * Lunghezza degli n-grammi se non specificata
+	 */
+	static final int DEFAULT_LENGTH = 3;
+
+	private final int length;
+	private final Map<String, IntList> postings = new HashMap<>();
+
+	NGramIndex(int _length) {
+		if (_length < 1) {
+			throw new IllegalArgumentException("n-gram length must be > 0");
+		}
+		length = _length;
+	}
+
+	int getLength() {
+		return length;
+	}
+
+	/**
+	 * Aggiunge all'indice la parola del chunk con l'id specificato
+	 */
+	void add(int id, String word) {
+		for (String gram : grams(word)) {
+			IntList list = postings.get(gram);
+			if (list == null) {
+				list = new IntList();
+				postings.put(gram, list);
+			}
+			list.add(id);
+		}
+	}
+
+	/**
+	 * Rimuove dall'indice la parola del chunk con l'id specificato
+	 */
+	void remove(int id, String word) {
+		for (String gram : grams(word)) {
+			IntList list = postings.get(gram);
+			if (list != null) {
+				list.remove(id);
+				if (list.isEmpty()) {
+					postings.remove(gram);
+				}
+			}
+		}
+	}
+
+	void clear() {
+		postings.clear();
+	}
+
+	/**
+	 * Metodo che restituisce gli id dei chunk la cui parola contiene tutti gli
+	 * n-grammi del pattern. I candidati vanno poi verificati perchè gli
+	 * n-grammi potrebbero trovarsi in posizioni diverse.
+	 *
+	 * @param pattern
+	 *            pattern da cercare
+	 * @return lista ordinata degli id candidati, null se il pattern è più
+	 *         corto di n e l'indice non può essere utilizzato
+	 */
+	IntList candidates(String pattern) {
+		List<IntList> lists = postingsOf(pattern);
+		if (lists == null) {
+			return null;
+		}
+		if (lists.isEmpty()) {
+			return new IntList();
+		}
+		// si interseca partendo dalle liste più corte
+		IntList result = lists.get(0);
+		for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+			result = result.intersect(lists.get(i));
+		}
+		if (lists.size() == 1) {
+			// si restituisce una copia per non esporre la lista dell'indice
+			result = result.copy();
+		}
+		return result;
+	}
+
+	/**
+	 * Metodo che stima il numero di candidati per un pattern, cioè la
+	 * lunghezza della lista più corta tra quelle dei suoi n-grammi.
+	 *
+	 * @return il numero stimato di candidati, -1 se il pattern è più corto di
+	 *         n
+	 */
+	int estimate(String pattern) {
+		List<IntList> lists = postingsOf(pattern);
+		if (lists == null) {
+			return -1;
+		}
+		return lists.isEmpty() ? 0 : lists.get(0).size();
+	}
+
+	/**
+	 * Restituisce le liste degli n-grammi del pattern ordinate per lunghezza,
+	 * una lista vuota se un n-gramma non è presente, null se il pattern è più
+	 * corto di n
+	 */
+	private List<IntList> postingsOf(String pattern) {
+		if (pattern.length() < length) {
+			return null;
+		}
+		List<IntList> lists = new ArrayList<>();
+		for (String gram : grams(pattern)) {
+			IntList list = postings.get(gram);
+			if (list == null) {
+				// nessuna parola contiene questo n-gramma
+				return Collections.emptyList();
+			}
+			lists.add(list);
+		}
+		Collections.sort(lists, new Comparator<IntList>() {
+			@Override
+			public int compare(IntList a, IntList b) {
+				return Integer.compare(a.size(), b.size());
+			}
+		});
+		return lists;
+	}
+
+	/**
+	 * Restituisce gli n-grammi distinti di una parola
+	 */
+	private Set<String> grams(String word) {
+		Set<String> grams = new HashSet<>();
+		if (word != null) {
+			for (int i = 0; i + length <= word.length(); i++) {
+				grams.add(word.substring(i, i + length));
+			}
+		}
+		return grams;
+	}
+}
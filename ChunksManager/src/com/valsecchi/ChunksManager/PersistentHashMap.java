@@ -0,0 +1,397 @@
+package com.valsecchi.ChunksManager;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Mappa immutabile con chiavi stringa, implementata come hash array mapped
+ * trie: ogni nodo ha fino a 32 figli scelti con 5 bit del codice hash della
+ * chiave e memorizza solo quelli presenti, indicati da una bitmap. Le
+ * modifiche non cambiano la mappa ma ne creano una nuova che condivide con
+ * quella vecchia tutti i nodi non modificati, quindi costano O(log n) e le
+ * versioni precedenti restano valide per chi le sta leggendo.
+ * <p>
+ * Le modifiche vengono fatte con un {@link Editor}: i nodi creati da un editor
+ * appartengono a lui e vengono modificati sul posto, senza copiarli, finché
+ * la nuova mappa non viene resa visibile con {@link Editor#persistent()}.
+ * Così molte modifiche insieme, ad esempio durante il caricamento, non
+ * copiano ogni volta il percorso dalla radice.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionarySnapshot
+ *
+ */
+final class PersistentHashMap<V> {
+
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+
+	private static final PersistentHashMap<Object> EMPTY = new PersistentHashMap<>(
+			null, 0);
+
+	private final Node root;
+	private final int size;
+
+	private PersistentHashMap(Node _root, int _size) {
+		root = _root;
+		size = _size;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <V> PersistentHashMap<V> empty() {
+		return (PersistentHashMap<V>) EMPTY;
+	}
+
+	int size() {
+		return size;
+	}
+
+	@SuppressWarnings("unchecked")
+	V get(String key) {
+		int hash = key.hashCode();
+		Node node = root;
+		int shift = 0;
+		while (node != null) {
+			if (node.collision) {
+				int i = node.find(key);
+				return i < 0 ? null : (V) node.array[i + 1];
+			}
+			int bit = 1 << ((hash >>> shift) & MASK);
+			if ((node.bitmap & bit) == 0) {
+				return null;
+			}
+			int i = node.index(bit);
+			Object k = node.array[i];
+			if (k == null) {
+				node = (Node) node.array[i + 1];
+				shift += BITS;
+			} else {
+				return key.equals(k) ? (V) node.array[i + 1] : null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Vista dei valori della mappa, in ordine di codice hash delle chiavi
+	 */
+	Collection<V> values() {
+		return new AbstractCollection<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new ValuesIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/**
+	 * Crea un editor che parte da questa mappa, che non viene modificata
+	 */
+	Editor<V> edit() {
+		return new Editor<>(this);
+	}
+
+	/**
+	 * Nodo del trie. Un nodo normale contiene per ogni bit della bitmap una
+	 * coppia chiave e valore, oppure null e il nodo figlio. Un nodo di
+	 * collisione contiene le coppie delle chiavi con lo stesso codice hash.
+	 */
+	private static final class Node {
+		/**
+		 * Editor proprietario, l'unico che può modificare il nodo sul posto
+		 */
+		Object owner;
+		int bitmap;
+		Object[] array;
+		final boolean collision;
+
+		Node(Object _owner, int _bitmap, Object[] _array, boolean _collision) {
+			owner = _owner;
+			bitmap = _bitmap;
+			array = _array;
+			collision = _collision;
+		}
+
+		int index(int bit) {
+			return 2 * Integer.bitCount(bitmap & (bit - 1));
+		}
+
+		int find(String key) {
+			for (int i = 0; i < array.length; i += 2) {
+				if (key.equals(array[i])) {
+					return i;
+				}
+			}
+			return -1;
+		}
+	}
+
+	/**
+	 * Oggetto che costruisce una nuova versione della mappa. Non è thread
+	 * safe e non deve essere usato dopo {@link #persistent()}.
+	 */
+	static final class Editor<V> {
+
+		private Node root;
+		private int size;
+
+		private Editor(PersistentHashMap<V> map) {
+			root = map.root;
+			size = map.size;
+		}
+
+		void put(String key, V value) {
+			root = this.put(root, 0, key.hashCode(), key, value);
+		}
+
+		void remove(String key) {
+			root = this.remove(root, 0, key.hashCode(), key);
+		}
+
+		/**
+		 * Restituisce la nuova mappa; da questo momento i suoi nodi non
+		 * vengono più modificati
+		 */
+		PersistentHashMap<V> persistent() {
+			PersistentHashMap<V> map = new PersistentHashMap<>(root, size);
+			root = null;
+			size = 0;
+			return map;
+		}
+
+		/**
+		 * Restituisce il nodo se appartiene all'editor, altrimenti una sua
+		 * copia che gli appartiene
+		 */
+		private Node editable(Node node) {
+			if (node.owner == this) {
+				return node;
+			}
+			return new Node(this, node.bitmap, node.array.clone(),
+					node.collision);
+		}
+
+		private Node put(Node node, int shift, int hash, String key,
+				Object value) {
+			if (node == null) {
+				size += 1;
+				return new Node(this, 1 << ((hash >>> shift) & MASK),
+						new Object[] { key, value }, false);
+			}
+			if (node.collision) {
+				int h = ((String) node.array[0]).hashCode();
+				if (h != hash) {
+					// la chiave ha un altro codice hash: il nodo di collisione
+					// diventa il figlio di un nodo normale
+					Node parent = new Node(this, 1 << ((h >>> shift) & MASK),
+							new Object[] { null, node }, false);
+					return this.put(parent, shift, hash, key, value);
+				}
+				int i = node.find(key);
+				if (i >= 0) {
+					if (node.array[i + 1] == value) {
+						return node;
+					}
+					node = this.editable(node);
+					node.array[i + 1] = value;
+					return node;
+				}
+				node = this.editable(node);
+				Object[] array = new Object[node.array.length + 2];
+				System.arraycopy(node.array, 0, array, 0, node.array.length);
+				array[node.array.length] = key;
+				array[node.array.length + 1] = value;
+				node.array = array;
+				size += 1;
+				return node;
+			}
+			int bit = 1 << ((hash >>> shift) & MASK);
+			int i = node.index(bit);
+			if ((node.bitmap & bit) == 0) {
+				// nuova coppia nella posizione del bit
+				Object[] array = new Object[node.array.length + 2];
+				System.arraycopy(node.array, 0, array, 0, i);
+				array[i] = key;
+				array[i + 1] = value;
+				System.arraycopy(node.array, i, array, i + 2,
+						node.array.length - i);
+				node = this.editable(node);
+				node.array = array;
+				node.bitmap |= bit;
+				size += 1;
+				return node;
+			}
+			Object k = node.array[i];
+			Object v = node.array[i + 1];
+			Object replacement;
+			boolean split = false;
+			if (k == null) {
+				replacement = this.put((Node) v, shift + BITS, hash, key, value);
+			} else if (key.equals(k)) {
+				replacement = value;
+			} else {
+				// due chiavi nella stessa posizione: si crea un figlio
+				replacement = this.pair(shift + BITS, (String) k, v, hash, key,
+						value);
+				split = true;
+				size += 1;
+			}
+			if (split == false && replacement == v) {
+				return node;
+			}
+			node = this.editable(node);
+			if (split) {
+				node.array[i] = null;
+			}
+			node.array[i + 1] = replacement;
+			return node;
+		}
+
+		/**
+		 * Nodo che contiene due chiavi diverse a partire dal livello shift
+		 */
+		private Node pair(int shift, String k1, Object v1, int hash,
+				String k2, Object v2) {
+			int h1 = k1.hashCode();
+			if (h1 == hash) {
+				return new Node(this, 0, new Object[] { k1, v1, k2, v2 }, true);
+			}
+			int p1 = (h1 >>> shift) & MASK;
+			int p2 = (hash >>> shift) & MASK;
+			if (p1 == p2) {
+				return new Node(this, 1 << p1, new Object[] { null,
+						this.pair(shift + BITS, k1, v1, hash, k2, v2) }, false);
+			}
+			Object[] array = p1 < p2 ? new Object[] { k1, v1, k2, v2 }
+					: new Object[] { k2, v2, k1, v1 };
+			return new Node(this, (1 << p1) | (1 << p2), array, false);
+		}
+
+		/**
+		 * Rimuove la chiave dal sotto albero, restituisce null se il nodo
+		 * rimane vuoto
+		 */
+		private Node remove(Node node, int shift, int hash, String key) {
+			if (node == null) {
+				return null;
+			}
+			if (node.collision) {
+				int i = node.find(key);
+				if (i < 0) {
+					return node;
+				}
+				size -= 1;
+				if (node.array.length == 2) {
+					return null;
+				}
+				return this.without(node, i, 0);
+			}
+			int bit = 1 << ((hash >>> shift) & MASK);
+			if ((node.bitmap & bit) == 0) {
+				return node;
+			}
+			int i = node.index(bit);
+			Object k = node.array[i];
+			if (k == null) {
+				Node child = (Node) node.array[i + 1];
+				Node replacement = this.remove(child, shift + BITS, hash, key);
+				if (replacement == child) {
+					return node;
+				}
+				if (replacement != null) {
+					node = this.editable(node);
+					node.array[i + 1] = replacement;
+					return node;
+				}
+			} else if (key.equals(k) == false) {
+				return node;
+			} else {
+				size -= 1;
+			}
+			// si elimina la coppia o il figlio rimasto vuoto
+			if (node.bitmap == bit) {
+				return null;
+			}
+			return this.without(node, i, bit);
+		}
+
+		private Node without(Node node, int i, int bit) {
+			Object[] array = new Object[node.array.length - 2];
+			System.arraycopy(node.array, 0, array, 0, i);
+			System.arraycopy(node.array, i + 2, array, i, array.length - i);
+			node = this.editable(node);
+			node.array = array;
+			node.bitmap &= ~bit;
+			return node;
+		}
+	}
+
+	/**
+	 * Iteratore dei valori che visita il trie in profondità
+	 */
+	private final class ValuesIterator implements Iterator<V> {
+
+		/**
+		 * Nodi in corso di visita e posizione raggiunta in ognuno
+		 */
+		private final Node[] nodes = new Node[32 / BITS + 2];
+		private final int[] positions = new int[nodes.length];
+		private int depth = -1;
+		private Object next;
+		private boolean ready = false;
+
+		ValuesIterator() {
+			if (root != null) {
+				nodes[0] = root;
+				depth = 0;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (ready == false && depth >= 0) {
+				Node node = nodes[depth];
+				int i = positions[depth];
+				if (i >= node.array.length) {
+					positions[depth] = 0;
+					depth -= 1;
+					continue;
+				}
+				positions[depth] = i + 2;
+				if (node.array[i] == null) {
+					depth += 1;
+					nodes[depth] = (Node) node.array[i + 1];
+					positions[depth] = 0;
+				} else {
+					next = node.array[i + 1];
+					ready = true;
+				}
+			}
+			return ready;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V next() {
+			if (this.hasNext() == false) {
+				throw new NoSuchElementException();
+			}
+			ready = false;
+			return (V) next;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
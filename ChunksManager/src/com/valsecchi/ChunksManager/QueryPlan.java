@@ -0,0 +1,158 @@
+package com.valsecchi.ChunksManager;
+
+/**
+ * Piano di esecuzione di una ricerca per pattern, tipo e unità. Il piano
+ * viene scelto in base alle statistiche degli indici: si stima quanti chunk
+ * soddisfano ogni filtro e si parte dal filtro più selettivo, verificando gli
+ * altri solo sui chunk rimasti. Il metodo {@link #toString()} descrive il piano
+ * scelto con le stime utilizzate.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData#getChunksWithArguments(String,
+ *      String, String)
+ *
+ */
+final class QueryPlan {
+
+	/**
+	 * Nessun filtro: si restituiscono tutti i chunk
+	 */
+	static final int ALL = 0;
+	/**
+	 * Solo il pattern, più corto degli n-grammi: si scorrono tutti i chunk
+	 */
+	static final int SCAN = 1;
+	/**
+	 * Si parte dai candidati dell'indice degli n-grammi e si verificano
+	 * pattern, tipo e unità su ogni candidato
+	 */
+	static final int WORD_FIRST = 2;
+	/**
+	 * Si parte dalla bitmap di tipo e unità e si verifica il pattern, se
+	 * presente, su ogni chunk della bitmap
+	 */
+	static final int ATTRIBUTES_FIRST = 3;
+
+	private static final String[] NAMES = { "ALL", "SCAN", "WORD_FIRST",
+			"ATTRIBUTES_FIRST" };
+
+	final int strategy;
+	final String pattern;
+	final String type;
+	final String unit;
+	/**
+	 * Numero totale di chunk
+	 */
+	final int total;
+	/**
+	 * Stime del numero di chunk che soddisfano ogni filtro, -1 se il filtro
+	 * non è presente o non può usare un indice
+	 */
+	final int wordEstimate;
+	final int typeEstimate;
+	final int unitEstimate;
+
+	private QueryPlan(int _strategy, String _pattern, String _type,
+			String _unit, int _total, int _wordEstimate, int _typeEstimate,
+			int _unitEstimate) {
+		strategy = _strategy;
+		pattern = _pattern;
+		type = _type;
+		unit = _unit;
+		total = _total;
+		wordEstimate = _wordEstimate;
+		typeEstimate = _typeEstimate;
+		unitEstimate = _unitEstimate;
+	}
+
+	/**
+	 * Metodo che sceglie il piano per una ricerca. Le stime di tipo e unità
+	 * sono esatte, perchè ogni chunk ha un solo valore per attributo, mentre
+	 * quella del pattern è la lunghezza della lista più corta tra quelle dei
+	 * suoi n-grammi.
+	 */
+	static QueryPlan create(String pattern, String type, String unit,
+			int total, NGramIndex words, AttributeIndex types,
+			AttributeIndex units) {
+		boolean hasPattern = pattern.equals("") == false;
+		boolean hasType = type.equals("") == false;
+		boolean hasUnit = unit.equals("") == false;
+		int wordEstimate = hasPattern ? words.estimate(pattern) : -1;
+		int typeEstimate = hasType ? types.countContaining(type) : -1;
+		int unitEstimate = hasUnit ? units.count(unit) : -1;
+		int strategy;
+		if (hasType == false && hasUnit == false) {
+			if (hasPattern == false) {
+				strategy = ALL;
+			} else if (wordEstimate < 0) {
+				strategy = SCAN;
+			} else {
+				strategy = WORD_FIRST;
+			}
+		} else if (hasPattern == false || wordEstimate < 0) {
+			strategy = ATTRIBUTES_FIRST;
+		} else {
+			// l'AND delle bitmap non può superare la più piccola
+			int attributesEstimate = Math.min(
+					hasType ? typeEstimate : total,
+					hasUnit ? unitEstimate : total);
+			if (wordEstimate <= attributesEstimate) {
+				strategy = WORD_FIRST;
+			} else {
+				strategy = ATTRIBUTES_FIRST;
+			}
+		}
+		return new QueryPlan(strategy, pattern, type, unit, total,
+				wordEstimate, typeEstimate, unitEstimate);
+	}
+
+	/**
+	 * Restituisce la descrizione del piano e delle stime utilizzate
+	 */
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append("plan: ").append(NAMES[strategy]).append(" (")
+				.append(total).append(" chunks)");
+		if (pattern.equals("") == false) {
+			str.append("\n  pattern contains \"").append(pattern).append('"');
+			if (wordEstimate < 0) {
+				str.append(": too short for the n-gram index");
+			} else {
+				str.append(": n-gram index, ~").append(wordEstimate)
+						.append(" candidates");
+			}
+		}
+		if (type.equals("") == false) {
+			str.append("\n  type contains \"").append(type).append("\": ")
+					.append(typeEstimate).append(" chunks");
+		}
+		if (unit.equals("") == false) {
+			str.append("\n  unit equals \"").append(unit).append("\": ")
+					.append(unitEstimate).append(" chunks");
+		}
+		switch (strategy) {
+		case ALL:
+			str.append("\n  -> return all chunks");
+			break;
+		case SCAN:
+			str.append("\n  -> scan all chunks and verify the pattern");
+			break;
+		case WORD_FIRST:
+			str.append("\n  -> intersect n-gram postings, verify pattern");
+			if (type.equals("") == false || unit.equals("") == false) {
+				str.append(" and attributes on each candidate");
+			}
+			break;
+		default:
+			str.append("\n  -> AND type/unit bitmaps");
+			if (pattern.equals("") == false) {
+				str.append(", verify the pattern on each chunk");
+			}
+			break;
+		}
+		return str.toString();
+	}
+}
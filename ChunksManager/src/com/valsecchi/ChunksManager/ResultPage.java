@@ -0,0 +1,46 @@
+package com.valsecchi.ChunksManager;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Pagina dei risultati di una ricerca. Oltre ai risultati contiene il token
+ * da passare alla ricerca successiva per ottenere la pagina seguente, senza
+ * ripetere la ricerca dall'inizio.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData#getChunksWithArguments(String,
+ *      String, String, String, int)
+ *
+ */
+public final class ResultPage<T> {
+
+	private final List<T> items;
+	private final String nextToken;
+
+	ResultPage(List<T> _items, String _nextToken) {
+		items = Collections.unmodifiableList(_items);
+		nextToken = _nextToken;
+	}
+
+	/**
+	 * Risultati della pagina
+	 */
+	public List<T> getItems() {
+		return items;
+	}
+
+	/**
+	 * Token per ottenere la pagina successiva, null se non ci sono altri
+	 * risultati
+	 */
+	public String getNextToken() {
+		return nextToken;
+	}
+
+	public boolean hasNext() {
+		return nextToken != null;
+	}
+}
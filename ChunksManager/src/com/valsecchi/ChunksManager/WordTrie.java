@@ -0,0 +1,425 @@
+package com.valsecchi.ChunksManager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Albero radix delle parole dei chunk, utilizzato per il completamento dei
+ * prefissi e per la ricerca delle parole simili. Ogni arco è etichettato con
+ * una sequenza di caratteri e i nodi con un solo figlio vengono uniti, quindi
+ * l'albero ha al più un nodo interno per ogni punto in cui le parole si
+ * diramano. I figli di ogni nodo sono ordinati, così la visita in profondità
+ * restituisce le parole in ordine alfabetico e si ferma appena trovate quelle
+ * richieste: il costo dipende dalla lunghezza del prefisso e dal numero di
+ * risultati, non dalla dimensione del dizionario.
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryData#getChunksByPrefix(String,
+ *      String, String, int)
+ * @see com.valsecchi.ChunksManager.DictionaryData#getChunksByDistance(String,
+ *      int, String, String)
+ *
+ */
+final class WordTrie {
+
+	private static final Node[] NO_CHILDREN = new Node[0];
+	private static final char[] NO_FIRSTS = new char[0];
+
+	private static final class Node {
+		/**
+		 * Caratteri dell'arco che arriva al nodo
+		 */
+		String label;
+		/**
+		 * Figli ordinati per il primo carattere dell'etichetta
+		 */
+		Node[] children = NO_CHILDREN;
+		/**
+		 * Primo carattere dell'etichetta di ogni figlio, per scegliere o
+		 * scartare i figli senza leggerli
+		 */
+		char[] firsts = NO_FIRSTS;
+		/**
+		 * Id dei chunk la cui parola termina in questo nodo, null se nessuna
+		 */
+		IntList ids;
+
+		Node(String _label) {
+			label = _label;
+		}
+	}
+
+	private Node root = new Node("");
+	/**
+	 * Lunghezza della parola più lunga aggiunta dall'ultimo {@link #clear()};
+	 * non diminuisce con le rimozioni, quindi è un limite superiore
+	 */
+	private int longest = 0;
+
+	void clear() {
+		root = new Node("");
+		longest = 0;
+	}
+
+	/**
+	 * Aggiunge la parola del chunk con l'id specificato
+	 */
+	void add(int id, String word) {
+		if (word == null) {
+			return;
+		}
+		longest = Math.max(longest, word.length());
+		Node node = root;
+		int pos = 0;
+		while (pos < word.length()) {
+			int index = find(node, word.charAt(pos));
+			if (index < 0) {
+				// nessuna parola continua con questo carattere: nuova foglia
+				Node leaf = new Node(word.substring(pos));
+				leaf.ids = new IntList();
+				leaf.ids.add(id);
+				insert(node, -index - 1, leaf);
+				return;
+			}
+			Node child = node.children[index];
+			int common = commonPrefix(child.label, word, pos);
+			if (common < child.label.length()) {
+				// la parola si dirama a metà dell'arco: si divide l'arco
+				Node middle = new Node(child.label.substring(0, common));
+				child.label = child.label.substring(common);
+				middle.children = new Node[] { child };
+				middle.firsts = new char[] { child.label.charAt(0) };
+				node.children[index] = middle;
+				child = middle;
+			}
+			node = child;
+			pos += common;
+		}
+		if (node.ids == null) {
+			node.ids = new IntList();
+		}
+		node.ids.add(id);
+	}
+
+	/**
+	 * Rimuove la parola del chunk con l'id specificato, eliminando i nodi che
+	 * rimangono vuoti e unendo quelli con un solo figlio
+	 */
+	void remove(int id, String word) {
+		if (word == null) {
+			return;
+		}
+		Node[] path = new Node[word.length() + 1];
+		int depth = 0;
+		path[0] = root;
+		Node node = root;
+		int pos = 0;
+		while (pos < word.length()) {
+			int index = find(node, word.charAt(pos));
+			if (index < 0) {
+				return;
+			}
+			Node child = node.children[index];
+			if (word.startsWith(child.label, pos) == false) {
+				return;
+			}
+			node = child;
+			pos += child.label.length();
+			path[++depth] = node;
+		}
+		if (node.ids == null || node.ids.remove(id) == false) {
+			return;
+		}
+		if (node.ids.isEmpty()) {
+			node.ids = null;
+		}
+		// si risale il percorso compattando i nodi
+		for (int d = depth; d > 0; d--) {
+			Node current = path[d];
+			Node parent = path[d - 1];
+			if (current.ids != null) {
+				break;
+			}
+			if (current.children.length == 0) {
+				delete(parent, current);
+			} else if (current.children.length == 1) {
+				Node only = current.children[0];
+				only.label = current.label + only.label;
+				parent.children[find(parent, current.label.charAt(0))] = only;
+				break;
+			} else {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Metodo che restituisce gli id dei chunk le cui parole iniziano con
+	 * prefix, in ordine alfabetico delle parole. Per ogni parola viene
+	 * restituito un solo id, il primo che supera il filtro. Con un filtro
+	 * molto selettivo la visita può dover scorrere molte parole scartate.
+	 *
+	 * @param prefix
+	 *            prefisso delle parole
+	 * @param filter
+	 *            bitmap degli id ammessi, null per ammetterli tutti
+	 * @param limit
+	 *            numero massimo di risultati
+	 * @return lista degli id, in ordine alfabetico delle parole
+	 */
+	List<Integer> complete(String prefix, BitSet filter, int limit) {
+		List<Integer> results = new ArrayList<>();
+		Node node = root;
+		int pos = 0;
+		while (pos < prefix.length()) {
+			int index = find(node, prefix.charAt(pos));
+			if (index < 0) {
+				return results;
+			}
+			Node child = node.children[index];
+			int common = commonPrefix(child.label, prefix, pos);
+			if (pos + common < prefix.length() && common < child.label.length()) {
+				// il prefisso si separa dall'arco
+				return results;
+			}
+			// se il prefisso termina a metà dell'arco, tutte le parole del
+			// sottoalbero lo contengono
+			node = child;
+			pos += common;
+		}
+		collect(node, filter, limit, results);
+		return results;
+	}
+
+	/**
+	 * Metodo che restituisce gli id dei chunk le cui parole distano al più
+	 * maxDistance da word secondo la distanza di Levenshtein. L'albero viene
+	 * visitato calcolando una riga della matrice della distanza per ogni
+	 * carattere, condivisa da tutte le parole con lo stesso prefisso; i
+	 * sottoalberi in cui tutta la riga supera maxDistance vengono scartati,
+	 * quindi per distanze piccole si visita solo una piccola parte
+	 * dell'albero. Come in {@link #complete(String, BitSet, int)} per ogni
+	 * parola viene restituito un solo id.
+	 *
+	 * @param word
+	 *            parola da cercare
+	 * @param maxDistance
+	 *            distanza massima
+	 * @param filter
+	 *            bitmap degli id ammessi, null per ammetterli tutti
+	 * @return lista degli id, ordinati per distanza e poi in ordine
+	 *         alfabetico delle parole
+	 */
+	List<Integer> fuzzy(String word, int maxDistance, BitSet filter) {
+		List<Integer> results = new ArrayList<>();
+		if (maxDistance < 0) {
+			return results;
+		}
+		// la distanza da una parola dell'albero non supera mai la somma delle
+		// lunghezze, quindi le distanze maggiori equivalgono a questa
+		maxDistance = Math.min(maxDistance, word.length() + longest);
+		List<List<Integer>> byDistance = new ArrayList<>(maxDistance + 1);
+		for (int d = 0; d <= maxDistance; d++) {
+			byDistance.add(new ArrayList<Integer>());
+		}
+		new Search(word, maxDistance, filter, byDistance).visit(root, 0, 0);
+		for (List<Integer> ids : byDistance) {
+			results.addAll(ids);
+		}
+		return results;
+	}
+
+	/**
+	 * Visita dell'albero per {@link #fuzzy(String, int, BitSet)}. Per ogni
+	 * profondità si conserva una riga della matrice della distanza tra il
+	 * prefisso visitato e i prefissi di word; i valori sono limitati a
+	 * maxDistance + 1 e vengono calcolate solo le celle distanti al più
+	 * maxDistance dalla diagonale, perchè le altre superano comunque
+	 * maxDistance. Il primo carattere di ogni figlio viene letto da
+	 * {@link Node#firsts}, così i figli scartati non vengono mai letti.
+	 */
+	private static final class Search {
+
+		private final String word;
+		private final int maxDistance;
+		private final BitSet filter;
+		private final List<List<Integer>> byDistance;
+		private final int[][] rows;
+
+		Search(String _word, int _maxDistance, BitSet _filter,
+				List<List<Integer>> _byDistance) {
+			word = _word;
+			maxDistance = _maxDistance;
+			filter = _filter;
+			byDistance = _byDistance;
+			// oltre word.length() + maxDistance caratteri nessuna parola può
+			// essere abbastanza vicina
+			rows = new int[word.length() + maxDistance + 2][word.length() + 1];
+			// prima riga: distanza tra il prefisso vuoto e i prefissi di word
+			for (int i = 0; i <= word.length(); i++) {
+				rows[0][i] = Math.min(i, maxDistance + 1);
+			}
+		}
+
+		/**
+		 * Visita il nodo a partire dal carattere start dell'etichetta, con
+		 * rows[depth] riga del prefisso che precede quel carattere
+		 */
+		void visit(Node node, int start, int depth) {
+			for (int k = start; k < node.label.length(); k++) {
+				if (this.step(depth, node.label.charAt(k)) > maxDistance) {
+					return;
+				}
+				depth += 1;
+			}
+			int length = word.length();
+			// l'ultima cella è fuori dalla banda se la parola è troppo corta
+			int distance = depth + maxDistance < length ? maxDistance + 1
+					: rows[depth][length];
+			if (node.ids != null && distance <= maxDistance) {
+				for (int i = 0; i < node.ids.size(); i++) {
+					int id = node.ids.get(i);
+					if (filter == null || filter.get(id)) {
+						byDistance.get(distance).add(id);
+						break;
+					}
+				}
+			}
+			for (int i = 0; i < node.children.length; i++) {
+				// si legge il figlio solo se il suo primo carattere non
+				// allontana tutta la riga oltre maxDistance
+				if (this.step(depth, node.firsts[i]) <= maxDistance) {
+					this.visit(node.children[i], 1, depth + 1);
+				}
+			}
+		}
+
+		/**
+		 * Calcola rows[depth + 1] aggiungendo il carattere c al prefisso
+		 *
+		 * @return il valore minimo della nuova riga
+		 */
+		private int step(int depth, char c) {
+			int over = maxDistance + 1;
+			if (depth + 1 >= rows.length) {
+				return over;
+			}
+			int length = word.length();
+			int[] row = rows[depth];
+			int[] next = rows[depth + 1];
+			depth += 1;
+			int from = Math.max(1, depth - maxDistance);
+			int to = Math.min(length, depth + maxDistance);
+			next[0] = Math.min(depth, over);
+			if (from > 1) {
+				next[from - 1] = over;
+			}
+			int min = next[0];
+			for (int i = from; i <= to; i++) {
+				int cost = word.charAt(i - 1) == c ? 0 : 1;
+				int value = Math.min(Math.min(next[i - 1] + 1, row[i] + 1),
+						row[i - 1] + cost);
+				next[i] = Math.min(value, over);
+				min = Math.min(min, next[i]);
+			}
+			if (to < length) {
+				next[to + 1] = over;
+			}
+			return min;
+		}
+	}
+
+	/**
+	 * Visita il sottoalbero in ordine alfabetico fino a trovare limit parole
+	 */
+	private static void collect(Node node, BitSet filter, int limit,
+			List<Integer> results) {
+		if (results.size() >= limit) {
+			return;
+		}
+		if (node.ids != null) {
+			for (int i = 0; i < node.ids.size(); i++) {
+				int id = node.ids.get(i);
+				if (filter == null || filter.get(id)) {
+					results.add(id);
+					break;
+				}
+			}
+		}
+		for (int i = 0; i < node.children.length && results.size() < limit; i++) {
+			collect(node.children[i], filter, limit, results);
+		}
+	}
+
+	/**
+	 * Restituisce la posizione del figlio il cui arco inizia con c, o
+	 * -(punto di inserimento) - 1 se non esiste
+	 */
+	private static int find(Node node, char c) {
+		int low = 0;
+		int high = node.children.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			char current = node.firsts[mid];
+			if (current < c) {
+				low = mid + 1;
+			} else if (current > c) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	private static void insert(Node parent, int index, Node child) {
+		int length = parent.children.length;
+		Node[] children = new Node[length + 1];
+		char[] firsts = new char[length + 1];
+		System.arraycopy(parent.children, 0, children, 0, index);
+		System.arraycopy(parent.firsts, 0, firsts, 0, index);
+		children[index] = child;
+		firsts[index] = child.label.charAt(0);
+		System.arraycopy(parent.children, index, children, index + 1, length
+				- index);
+		System.arraycopy(parent.firsts, index, firsts, index + 1, length
+				- index);
+		parent.children = children;
+		parent.firsts = firsts;
+	}
+
+	private static void delete(Node parent, Node child) {
+		int index = find(parent, child.label.charAt(0));
+		int length = parent.children.length;
+		if (length == 1) {
+			parent.children = NO_CHILDREN;
+			parent.firsts = NO_FIRSTS;
+			return;
+		}
+		Node[] children = new Node[length - 1];
+		char[] firsts = new char[length - 1];
+		System.arraycopy(parent.children, 0, children, 0, index);
+		System.arraycopy(parent.firsts, 0, firsts, 0, index);
+		System.arraycopy(parent.children, index + 1, children, index, length
+				- index - 1);
+		System.arraycopy(parent.firsts, index + 1, firsts, index, length
+				- index - 1);
+		parent.children = children;
+		parent.firsts = firsts;
+	}
+
+	/**
+	 * Lunghezza del prefisso comune tra label e word a partire da pos
+	 */
+	private static int commonPrefix(String label, String word, int pos) {
+		int max = Math.min(label.length(), word.length() - pos);
+		int i = 0;
+		while (i < max && label.charAt(i) == word.charAt(pos + i)) {
+			i++;
+		}
+		return i;
+	}
+}
@@ -0,0 +1,183 @@
+package com.valsecchi.SimpleInterface;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.valsecchi.ChunksManager.DictionaryManager;
+
+import static java.lang.System.out;
+
+/**
+ * Programma che misura come cresce il numero di ricerche al secondo su un
+ * unico DictionaryManager aumentando i thread che lo usano insieme. Il
+ * dizionario viene creato in memoria, senza file, con il numero di chunk
+ * indicato; ogni thread esegue in ciclo ricerche con
+ * {@link DictionaryManager#findChunk(String, String, String)} seguite da
+ * {@link DictionaryManager#getChunkAttributes(String)},
+ * {@link DictionaryManager#getDefinitions(String)} e
+ * {@link DictionaryManager#complete(String, int)}. Il numero di thread parte
+ * da 1 e raddoppia fino al doppio dei processori disponibili.
+ * <p>
+ * Per ogni numero di thread vengono stampate le ricerche al secondo, il
+ * rapporto con quelle di un solo thread e il numero di risultati errati, cioè
+ * di parole trovate da un thread di cui lo stesso thread non riesce a leggere
+ * gli attributi. Con l'argomento writer un altro thread aggiunge e rimuove
+ * chunk durante la misura.
+ * <p>
+ * Uso: ReadScalingBenchmark [chunk] [secondi] [writer]
+ *
+ * @author Davide Valsecchi
+ * @version v.0.0.0
+ * @since v.0.0.0
+ * @see com.valsecchi.ChunksManager.DictionaryManager
+ */
+public class ReadScalingBenchmark {
+
+	private static final int DEFAULT_CHUNKS = 100000;
+	private static final int DEFAULT_SECONDS = 3;
+	/**
+	 * Numero massimo di parole trovate di cui leggere gli attributi
+	 */
+	private static final int MAX_ATTRIBUTES = 10;
+	private static final String[] TYPES = { "noun", "verb", "adjective",
+			"adverb" };
+	private static final String[] UNITS = { "base", "intermediate",
+			"advanced" };
+
+	public static void main(String[] args) throws InterruptedException {
+		int chunks = args.length > 0 ? Integer.parseInt(args[0])
+				: DEFAULT_CHUNKS;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1])
+				: DEFAULT_SECONDS;
+		boolean writer = args.length > 2 && args[2].equals("writer");
+		int cores = Runtime.getRuntime().availableProcessors();
+
+		out.println("Creating a dictionary with " + chunks + " chunks...");
+		// il file non viene mai letto né scritto
+		DictionaryManager manager = new DictionaryManager(
+				DictionaryManager.OFFLINE_MODE, "benchmark",
+				Paths.get("benchmark.xml"));
+		for (int i = 0; i < chunks; i++) {
+			manager.addChunk(word(i), TYPES[i % TYPES.length], UNITS[i
+					% UNITS.length], Arrays.asList("definition of " + word(i),
+					"example " + i));
+		}
+		// si riscaldano gli indici e il compilatore
+		run(manager, chunks, 1, 1, false);
+
+		out.println("Processors: " + cores + ", seconds per step: " + seconds
+				+ (writer ? ", with writer" : ""));
+		out.println("threads\tops/s\tspeedup\terrors");
+		double single = 0;
+		for (int threads = 1; threads <= cores * 2; threads *= 2) {
+			long[] result = run(manager, chunks, threads, seconds, writer);
+			double perSecond = result[0] / (double) seconds;
+			if (threads == 1) {
+				single = perSecond;
+			}
+			out.println(threads + "\t" + Math.round(perSecond) + "\t"
+					+ String.format("%.2f", perSecond / single) + "\t"
+					+ result[1]);
+		}
+	}
+
+	/**
+	 * Parola del chunk i-esimo: le parole hanno prefissi comuni, così le
+	 * ricerche per pattern e prefisso trovano più chunk
+	 */
+	private static String word(int i) {
+		return "w" + Integer.toString(i, 36);
+	}
+
+	/**
+	 * Esegue le ricerche con il numero di thread indicato per il tempo
+	 * indicato
+	 *
+	 * @return numero di ricerche eseguite e numero di risultati errati
+	 */
+	private static long[] run(final DictionaryManager manager,
+			final int chunks, int threads, int seconds, boolean writer)
+			throws InterruptedException {
+		final AtomicLong operations = new AtomicLong();
+		final AtomicLong errors = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch(1);
+		final long[] end = new long[1];
+		final AtomicBoolean stop = new AtomicBoolean();
+		List<Thread> workers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			final Random random = new Random(t);
+			workers.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					long done = 0;
+					long wrong = 0;
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					while (System.nanoTime() < end[0]) {
+						String word = word(random.nextInt(chunks));
+						// le parole che contengono la parola cercata
+						List<String> found = manager.findChunk(word, "", "");
+						if (found != null) {
+							for (String w : found.subList(0,
+									Math.min(found.size(), MAX_ATTRIBUTES))) {
+								try {
+									if (manager.getChunkAttributes(w)[0] == null) {
+										wrong += 1;
+									}
+								} catch (NullPointerException e) {
+									// il chunk non è nel buffer del thread
+									wrong += 1;
+								}
+							}
+						}
+						manager.getDefinitions(word);
+						manager.complete(word.substring(0, 2), 10);
+						done += 1;
+					}
+					operations.addAndGet(done);
+					errors.addAndGet(wrong);
+				}
+			}));
+		}
+		Thread modifier = null;
+		if (writer) {
+			modifier = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					int i = chunks;
+					while (stop.get() == false) {
+						manager.addChunk(word(i), TYPES[0], UNITS[0],
+								Arrays.asList("new"));
+						manager.removeChunk(word(i));
+						i += 1;
+					}
+				}
+			});
+		}
+		end[0] = System.nanoTime() + seconds * 1000000000L;
+		for (Thread w : workers) {
+			w.start();
+		}
+		if (modifier != null) {
+			modifier.start();
+		}
+		start.countDown();
+		for (Thread w : workers) {
+			w.join();
+		}
+		if (modifier != null) {
+			stop.set(true);
+			modifier.join();
+		}
+		return new long[] { operations.get(), errors.get() };
+	}
+}